@@ -0,0 +1,113 @@
+package fr.insee.vtl.benchmarks;
+
+import fr.insee.vtl.engine.VtlScriptEngine;
+import fr.insee.vtl.engine.VtlScriptEngineFactory;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.LazyDataset;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * <code>AggregationBenchmark</code> measures the aggregate clause and operators on datasets of different sizes.
+ * <p>
+ * Besides the in-memory dataset, the <code>streamed</code> benchmark aggregates data points generated on the fly so
+ * that only the groups are kept in memory. The <code>spilled</code> benchmark aggregates one group per data point with
+ * a memory budget of {@value #SPILL_BUDGET} bytes, so that the groups of the larger datasets are written to disk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+@State(Scope.Benchmark)
+public class AggregationBenchmark {
+
+    static final long SPILL_BUDGET = 16 * 1024 * 1024;
+
+    @Param({"1000", "100000", "10000000"})
+    private int rows;
+
+    private Bindings bindings;
+    private Bindings spillBindings;
+    private CompiledScript sum;
+    private CompiledScript count;
+    private CompiledScript statistics;
+    private CompiledScript distinct;
+    private CompiledScript operator;
+    private CompiledScript streamed;
+    private CompiledScript spilled;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ScriptException {
+        ScriptEngine engine = new VtlScriptEngineFactory().getScriptEngine();
+        bindings = engine.createBindings();
+        bindings.put("ds", Datasets.generate(rows));
+        bindings.put("lazy", new LazyDataset(() -> {
+            var random = new Random(42);
+            return LongStream.range(0, rows).mapToObj(index -> Datasets.row(index, random));
+        }, Datasets.STRUCTURE));
+        engine.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+        spillBindings = engine.createBindings();
+        spillBindings.putAll(bindings);
+        spillBindings.put(VtlScriptEngine.AGGREGATION_MEMORY, SPILL_BUDGET);
+
+        var compilable = (Compilable) engine;
+        sum = compilable.compile("res := ds[aggr amount := sum(amount) group by category];");
+        count = compilable.compile("res := ds[aggr n := count(id) group by category];");
+        statistics = compilable.compile("res := ds[aggr average := avg(amount), deviation := stddev_samp(amount), " +
+                "highest := max(amount) group by category];");
+        distinct = compilable.compile("res := ds[aggr amount := sum(amount) group by id];");
+        operator = compilable.compile("res := sum(ds[keep id, amount] group by id);");
+        streamed = compilable.compile("res := lazy[aggr amount := sum(amount), n := count(id) group by category];");
+        spilled = compilable.compile("res := lazy[aggr amount := sum(amount), highest := max(amount) group by id];");
+    }
+
+    private void run(CompiledScript script, Blackhole blackhole) throws ScriptException {
+        ClauseBenchmark.consume((Dataset) script.eval(bindings), blackhole);
+    }
+
+    @Benchmark
+    public void spilled(Blackhole blackhole) throws ScriptException {
+        ClauseBenchmark.consume((Dataset) spilled.eval(spillBindings), blackhole);
+    }
+
+    @Benchmark
+    public void sum(Blackhole blackhole) throws ScriptException {
+        run(sum, blackhole);
+    }
+
+    @Benchmark
+    public void count(Blackhole blackhole) throws ScriptException {
+        run(count, blackhole);
+    }
+
+    @Benchmark
+    public void statistics(Blackhole blackhole) throws ScriptException {
+        run(statistics, blackhole);
+    }
+
+    @Benchmark
+    public void distinct(Blackhole blackhole) throws ScriptException {
+        run(distinct, blackhole);
+    }
+
+    @Benchmark
+    public void operator(Blackhole blackhole) throws ScriptException {
+        run(operator, blackhole);
+    }
+
+    @Benchmark
+    public void streamed(Blackhole blackhole) throws ScriptException {
+        run(streamed, blackhole);
+    }
+}
@@ -0,0 +1,35 @@
+package fr.insee.vtl.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <code>BenchmarkRunner</code> runs the benchmarks with the GC profiler, so that the allocation rate is reported
+ * along with the throughput.
+ * <p>
+ * It accepts the usual JMH command line options, for instance a regular expression selecting the benchmarks to run.
+ */
+public class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        throw new IllegalStateException("Main class");
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        var commandLine = new CommandLineOptions(args);
+        var builder = new OptionsBuilder().parent(commandLine);
+        // The GC profiler is only added once, even if it is requested on the command line.
+        if (commandLine.getProfilers().stream().noneMatch(profiler -> isGcProfiler(profiler.getKlass()))) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        new Runner(builder.build()).run();
+    }
+
+    private static boolean isGcProfiler(String name) {
+        return "gc".equals(name) || GCProfiler.class.getName().equals(name);
+    }
+}
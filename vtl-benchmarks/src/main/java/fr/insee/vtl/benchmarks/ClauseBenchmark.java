@@ -0,0 +1,105 @@
+package fr.insee.vtl.benchmarks;
+
+import fr.insee.vtl.engine.VtlScriptEngineFactory;
+import fr.insee.vtl.model.Dataset;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>ClauseBenchmark</code> measures the evaluation of clauses on datasets of different sizes.
+ * <p>
+ * The scripts are compiled once; each invocation evaluates the script and reads every value of the result.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+@State(Scope.Benchmark)
+public class ClauseBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int rows;
+
+    private Bindings bindings;
+    private CompiledScript filter;
+    private CompiledScript calc;
+    private CompiledScript keep;
+    private CompiledScript drop;
+    private CompiledScript rename;
+    private CompiledScript chain;
+
+    /**
+     * Reads every value of a dataset.
+     *
+     * @param dataset   The dataset to read.
+     * @param blackhole The blackhole consuming the values.
+     */
+    static void consume(Dataset dataset, Blackhole blackhole) {
+        for (List<Object> row : dataset.getDataPoints()) {
+            for (Object value : row) {
+                blackhole.consume(value);
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws ScriptException {
+        ScriptEngine engine = new VtlScriptEngineFactory().getScriptEngine();
+        bindings = engine.createBindings();
+        bindings.put("ds", Datasets.generate(rows));
+        engine.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+
+        var compilable = (Compilable) engine;
+        filter = compilable.compile("res := ds[filter amount > 50.0 and flag];");
+        calc = compilable.compile("res := ds[calc doubled := amount * 2 + id, label := name || category];");
+        keep = compilable.compile("res := ds[keep id, amount];");
+        drop = compilable.compile("res := ds[drop name, category];");
+        rename = compilable.compile("res := ds[rename amount to quantity, name to label];");
+        chain = compilable.compile("res := ds[filter amount > 50.0][calc doubled := amount * 2 + id]" +
+                "[keep id, doubled, flag][rename doubled to result];");
+    }
+
+    private void run(CompiledScript script, Blackhole blackhole) throws ScriptException {
+        consume((Dataset) script.eval(bindings), blackhole);
+    }
+
+    @Benchmark
+    public void filter(Blackhole blackhole) throws ScriptException {
+        run(filter, blackhole);
+    }
+
+    @Benchmark
+    public void calc(Blackhole blackhole) throws ScriptException {
+        run(calc, blackhole);
+    }
+
+    @Benchmark
+    public void keep(Blackhole blackhole) throws ScriptException {
+        run(keep, blackhole);
+    }
+
+    @Benchmark
+    public void drop(Blackhole blackhole) throws ScriptException {
+        run(drop, blackhole);
+    }
+
+    @Benchmark
+    public void rename(Blackhole blackhole) throws ScriptException {
+        run(rename, blackhole);
+    }
+
+    @Benchmark
+    public void chain(Blackhole blackhole) throws ScriptException {
+        run(chain, blackhole);
+    }
+}
@@ -0,0 +1,53 @@
+package fr.insee.vtl.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.insee.vtl.jackson.TrevasModule;
+import fr.insee.vtl.model.Dataset;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>ComponentJsonBenchmark</code> measures the deserialization of data structures, made of many components.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ComponentJsonBenchmark {
+
+    private static final TypeReference<List<Dataset.Component>> STRUCTURE = new TypeReference<>() {
+    };
+
+    @Param({"10", "1000", "100000"})
+    private int components;
+
+    private ObjectMapper mapper;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = new ObjectMapper();
+        mapper.registerModule(new TrevasModule());
+
+        List<Dataset.Component> structure = new ArrayList<>(components);
+        for (int i = 0; i < components; i++) {
+            var component = Datasets.STRUCTURE.get(i % Datasets.STRUCTURE.size());
+            structure.add(new Dataset.Component(component.getName() + i, component.getType(), component.getRole()));
+        }
+        json = mapper.writeValueAsBytes(structure);
+    }
+
+    @Benchmark
+    public List<Dataset.Component> deserializeComponents(JsonBenchmark.Processed processed) throws IOException {
+        List<Dataset.Component> result = mapper.readValue(json, STRUCTURE);
+        processed.add(components, json.length);
+        return result;
+    }
+}
@@ -0,0 +1,64 @@
+package fr.insee.vtl.benchmarks;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <code>Datasets</code> generates the synthetic datasets used by the benchmarks.
+ */
+final class Datasets {
+
+    /**
+     * Structure of the generated datasets.
+     */
+    static final List<Dataset.Component> STRUCTURE = List.of(
+            new Dataset.Component("id", Long.class, Dataset.Role.IDENTIFIER),
+            new Dataset.Component("name", String.class, Dataset.Role.MEASURE),
+            new Dataset.Component("category", String.class, Dataset.Role.MEASURE),
+            new Dataset.Component("amount", Double.class, Dataset.Role.MEASURE),
+            new Dataset.Component("flag", Boolean.class, Dataset.Role.MEASURE)
+    );
+
+    private static final String[] CATEGORIES = {"alpha", "beta", "gamma", "delta"};
+
+    private Datasets() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Generates a dataset with the given number of rows. The same number of rows always gives the same dataset.
+     *
+     * @param rows The number of rows.
+     * @return A new <code>InMemoryDataset</code> following {@link #STRUCTURE}.
+     */
+    static InMemoryDataset generate(int rows) {
+        var random = new Random(42);
+        List<List<Object>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            data.add(row(i, random));
+        }
+        return new InMemoryDataset(data, STRUCTURE);
+    }
+
+    /**
+     * Generates a row of a dataset.
+     *
+     * @param index  The index of the row.
+     * @param random The random generator of the dataset.
+     * @return The values of the row, following {@link #STRUCTURE}.
+     */
+    static List<Object> row(long index, Random random) {
+        return Arrays.asList(
+                index,
+                "name" + index,
+                CATEGORIES[(int) (index % CATEGORIES.length)],
+                random.nextDouble() * 100,
+                random.nextBoolean()
+        );
+    }
+}
@@ -0,0 +1,88 @@
+package fr.insee.vtl.benchmarks;
+
+import fr.insee.vtl.engine.VtlScriptEngineFactory;
+import fr.insee.vtl.model.Dataset;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>ExpressionBenchmark</code> measures the evaluation of expression trees, computed for each data point of
+ * datasets of different sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+@State(Scope.Benchmark)
+public class ExpressionBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int rows;
+
+    private Bindings bindings;
+    private CompiledScript arithmetic;
+    private CompiledScript comparison;
+    private CompiledScript bool;
+    private CompiledScript string;
+    private CompiledScript condition;
+    private CompiledScript constant;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ScriptException {
+        ScriptEngine engine = new VtlScriptEngineFactory().getScriptEngine();
+        bindings = engine.createBindings();
+        bindings.put("ds", Datasets.generate(rows));
+        engine.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+
+        var compilable = (Compilable) engine;
+        arithmetic = compilable.compile("res := ds[calc r := (amount * 2 + id) / 3 - amount * (id - 1)];");
+        comparison = compilable.compile("res := ds[calc r := amount > 10.0 and id <= 500 or amount = 1.0];");
+        bool = compilable.compile("res := ds[calc r := flag and not flag or flag xor true];");
+        string = compilable.compile("res := ds[calc r := upper(name) || \"-\" || substr(category, 0, 2)];");
+        condition = compilable.compile("res := ds[calc r := if amount > 50.0 then \"high\" else \"low\"];");
+        constant = compilable.compile("res := ds[calc r := amount + (1 + 2) * 3 - length(\"constant\")];");
+    }
+
+    private void run(CompiledScript script, Blackhole blackhole) throws ScriptException {
+        ClauseBenchmark.consume((Dataset) script.eval(bindings), blackhole);
+    }
+
+    @Benchmark
+    public void arithmetic(Blackhole blackhole) throws ScriptException {
+        run(arithmetic, blackhole);
+    }
+
+    @Benchmark
+    public void comparison(Blackhole blackhole) throws ScriptException {
+        run(comparison, blackhole);
+    }
+
+    @Benchmark
+    public void bool(Blackhole blackhole) throws ScriptException {
+        run(bool, blackhole);
+    }
+
+    @Benchmark
+    public void string(Blackhole blackhole) throws ScriptException {
+        run(string, blackhole);
+    }
+
+    @Benchmark
+    public void condition(Blackhole blackhole) throws ScriptException {
+        run(condition, blackhole);
+    }
+
+    @Benchmark
+    public void constant(Blackhole blackhole) throws ScriptException {
+        run(constant, blackhole);
+    }
+}
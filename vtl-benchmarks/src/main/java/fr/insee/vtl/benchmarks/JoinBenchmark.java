@@ -0,0 +1,131 @@
+package fr.insee.vtl.benchmarks;
+
+import fr.insee.vtl.engine.VtlScriptEngine;
+import fr.insee.vtl.engine.VtlScriptEngineFactory;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.LazyDataset;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * <code>JoinBenchmark</code> measures the join operators on datasets of different sizes.
+ * <p>
+ * The generated dataset is joined with a reference dataset holding every other identifier, so that half of the data
+ * points have a match. The <code>streamed</code> benchmark joins data points generated on the fly, so that only the
+ * reference dataset is kept in memory. The <code>merged</code> benchmark joins the same data points with a reference
+ * dataset generated on the fly as well, both declared as sorted on their identifier, so that nothing is kept in
+ * memory. The <code>partitioned</code> benchmark executes the inner join with as many partitions as processors.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+@State(Scope.Benchmark)
+public class JoinBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int rows;
+
+    private Bindings bindings;
+    private Bindings partitionedBindings;
+    private CompiledScript inner;
+    private CompiledScript left;
+    private CompiledScript full;
+    private CompiledScript body;
+    private CompiledScript streamed;
+    private CompiledScript merged;
+    private CompiledScript partitioned;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ScriptException {
+        ScriptEngine engine = new VtlScriptEngineFactory().getScriptEngine();
+        bindings = engine.createBindings();
+        bindings.put("ds", Datasets.generate(rows));
+        bindings.put("lazy", new LazyDataset(() -> {
+            var random = new Random(42);
+            return LongStream.range(0, rows).mapToObj(index -> Datasets.row(index, random));
+        }, Datasets.STRUCTURE));
+        List<List<Object>> reference = new ArrayList<>(rows / 2);
+        for (long id = 0; id < rows; id += 2) {
+            reference.add(List.of(id, "label" + id));
+        }
+        var referenceStructure = List.of(
+                new Dataset.Component("id", Long.class, Dataset.Role.IDENTIFIER),
+                new Dataset.Component("label", String.class, Dataset.Role.MEASURE)
+        );
+        bindings.put("ref", new InMemoryDataset(reference, referenceStructure));
+        bindings.put("sorted", new LazyDataset(() -> {
+            var random = new Random(42);
+            return LongStream.range(0, rows).mapToObj(index -> Datasets.row(index, random));
+        }, Datasets.STRUCTURE, List.of("id")));
+        bindings.put("sorted_ref", new LazyDataset(() -> LongStream.range(0, rows).filter(id -> id % 2 == 0)
+                .mapToObj(id -> List.<Object>of(id, "label" + id)), referenceStructure, List.of("id")));
+        engine.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+        partitionedBindings = engine.createBindings();
+        partitionedBindings.putAll(bindings);
+        partitionedBindings.put(VtlScriptEngine.JOIN_PARTITIONS, Runtime.getRuntime().availableProcessors());
+
+        var compilable = (Compilable) engine;
+        inner = compilable.compile("res := inner_join(ds, ref);");
+        left = compilable.compile("res := left_join(ds, ref);");
+        full = compilable.compile("res := full_join(ds, ref);");
+        body = compilable.compile("res := inner_join(ds, ref filter flag calc double_amount := amount * 2 " +
+                "keep id, label, double_amount);");
+        streamed = compilable.compile("res := inner_join(lazy, ref);");
+        merged = compilable.compile("res := inner_join(sorted, sorted_ref);");
+        partitioned = compilable.compile("res := inner_join(ds, ref);");
+    }
+
+    private void run(CompiledScript script, Blackhole blackhole) throws ScriptException {
+        ClauseBenchmark.consume((Dataset) script.eval(bindings), blackhole);
+    }
+
+    @Benchmark
+    public void inner(Blackhole blackhole) throws ScriptException {
+        run(inner, blackhole);
+    }
+
+    @Benchmark
+    public void left(Blackhole blackhole) throws ScriptException {
+        run(left, blackhole);
+    }
+
+    @Benchmark
+    public void full(Blackhole blackhole) throws ScriptException {
+        run(full, blackhole);
+    }
+
+    @Benchmark
+    public void body(Blackhole blackhole) throws ScriptException {
+        run(body, blackhole);
+    }
+
+    @Benchmark
+    public void streamed(Blackhole blackhole) throws ScriptException {
+        run(streamed, blackhole);
+    }
+
+    @Benchmark
+    public void merged(Blackhole blackhole) throws ScriptException {
+        run(merged, blackhole);
+    }
+
+    @Benchmark
+    public void partitioned(Blackhole blackhole) throws ScriptException {
+        ClauseBenchmark.consume((Dataset) partitioned.eval(partitionedBindings), blackhole);
+    }
+}
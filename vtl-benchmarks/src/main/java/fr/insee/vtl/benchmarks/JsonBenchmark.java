@@ -0,0 +1,182 @@
+package fr.insee.vtl.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.insee.vtl.jackson.NdjsonDatasetReader;
+import fr.insee.vtl.jackson.NdjsonDatasetWriter;
+import fr.insee.vtl.jackson.TrevasModule;
+import fr.insee.vtl.model.Dataset;
+import org.openjdk.jmh.annotations.*;
+
+import javax.script.Bindings;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>JsonBenchmark</code> measures the serialization and deserialization of datasets and bindings, on JSON
+ * documents from 1 MB to 1 GB.
+ * <p>
+ * Along with the throughput of the whole document, the benchmarks report the number of rows and megabytes processed
+ * per second through the {@link Processed} counters. The number of bytes allocated per row is the allocation rate
+ * reported by the GC profiler (<code>gc.alloc.rate</code>, in MB/sec) divided by the <code>rows</code> rate, both
+ * being measured over the same iterations.
+ * <p>
+ * The same data points are also written and read as newline-delimited JSON, the reader parsing the file in parallel.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx16g"})
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int megabytes;
+
+    private ObjectMapper mapper;
+    private byte[] datasetJson;
+    private byte[] bindingsJson;
+    private Dataset dataset;
+    private long rows;
+    private Path ndjson;
+    private long ndjsonSize;
+
+    /**
+     * Counts the rows (or components) and megabytes processed by the benchmarks, reported as rates.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Processed {
+
+        public long rows;
+
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+            megabytes = 0;
+        }
+
+        void add(long rows, long bytes) {
+            this.rows += rows;
+            this.megabytes += bytes / (1024.0 * 1024.0);
+        }
+    }
+
+    /**
+     * Writes a dataset following {@link Datasets#STRUCTURE}, adding rows until the document reaches the given size.
+     *
+     * @param mapper The mapper.
+     * @param size   The minimal size of the document, in bytes.
+     * @return The JSON document.
+     */
+    static byte[] generate(ObjectMapper mapper, long size) throws IOException {
+        var output = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE - 8, size + size / 10));
+        var random = new Random(42);
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeObjectField("dataStructure", Datasets.STRUCTURE);
+            generator.writeArrayFieldStart("dataPoints");
+            for (long i = 0; generator.getOutputBuffered() + output.size() < size; i++) {
+                generator.writeObject(Datasets.row(i, random));
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return output.toByteArray();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = new ObjectMapper();
+        mapper.registerModule(new TrevasModule());
+
+        datasetJson = generate(mapper, megabytes * 1024L * 1024L);
+        var prefix = "{\"ds\":".getBytes(StandardCharsets.UTF_8);
+        bindingsJson = new byte[prefix.length + datasetJson.length + 1];
+        System.arraycopy(prefix, 0, bindingsJson, 0, prefix.length);
+        System.arraycopy(datasetJson, 0, bindingsJson, prefix.length, datasetJson.length);
+        bindingsJson[bindingsJson.length - 1] = '}';
+
+        dataset = mapper.readValue(datasetJson, Dataset.class);
+        rows = dataset.getDataPoints().size();
+
+        ndjson = Files.createTempFile("dataset", ".ndjson");
+        try (var output = Files.newOutputStream(ndjson)) {
+            new NdjsonDatasetWriter(mapper).write(dataset, output);
+        }
+        ndjsonSize = Files.size(ndjson);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(ndjson);
+    }
+
+    @Benchmark
+    public long serializeDataset(Processed processed) throws IOException {
+        var output = new CountingOutputStream();
+        mapper.writeValue(output, dataset);
+        processed.add(rows, output.count);
+        return output.count;
+    }
+
+    @Benchmark
+    public Dataset deserializeDataset(Processed processed) throws IOException {
+        var result = mapper.readValue(datasetJson, Dataset.class);
+        processed.add(rows, datasetJson.length);
+        return result;
+    }
+
+    @Benchmark
+    public Bindings deserializeBindings(Processed processed) throws IOException {
+        var result = mapper.readValue(bindingsJson, Bindings.class);
+        // Reads the data points so that the whole binding is deserialized.
+        var ds = (Dataset) result.get("ds");
+        ds.getDataPoints();
+        processed.add(rows, bindingsJson.length);
+        return result;
+    }
+
+    @Benchmark
+    public long writeNdjson(Processed processed) throws IOException {
+        var output = new CountingOutputStream();
+        new NdjsonDatasetWriter(mapper).write(dataset, output);
+        processed.add(rows, output.count);
+        return output.count;
+    }
+
+    @Benchmark
+    public Dataset readNdjson(Processed processed) throws IOException {
+        var result = new NdjsonDatasetReader(mapper).read(ndjson);
+        processed.add(rows, ndjsonSize);
+        return result;
+    }
+
+    /**
+     * Discards the written bytes, only counting them.
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package fr.insee.vtl.benchmarks;
+
+import fr.insee.vtl.parser.VtlLexer;
+import fr.insee.vtl.parser.VtlParser;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>ParserBenchmark</code> measures the lexing and parsing of scripts of different sizes and shapes.
+ * <p>
+ * The <code>SLL</code> mode gives up at the first error, as the engine does before falling back to <code>LL</code>.
+ * With a <code>cold</code> cache, the lexer and the parser start each script with empty DFA caches, as the first
+ * script parsed by a JVM does; otherwise the caches shared by all lexers and parsers are kept warm.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    /**
+     * Fails on the first syntax error so that the benchmarks only measure valid scripts.
+     */
+    private static final BaseErrorListener FAIL = new BaseErrorListener() {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            throw new IllegalStateException("syntax error at " + line + ":" + charPositionInLine + ": " + msg);
+        }
+    };
+
+    @Param({"10", "100", "1000", "10000"})
+    private int statements;
+
+    @Param({"ASSIGNMENT", "NESTED", "IN_LIST", "RULESET"})
+    private Scripts.Shape shape;
+
+    @Param({"LL", "SLL"})
+    private String mode;
+
+    @Param({"warm", "cold"})
+    private String cache;
+
+    private String script;
+
+    private static DFA[] emptyCache(ATN atn) {
+        var dfa = new DFA[atn.getNumberOfDecisions()];
+        for (int i = 0; i < dfa.length; i++) {
+            dfa[i] = new DFA(atn.getDecisionState(i), i);
+        }
+        return dfa;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        script = Scripts.generate(shape, statements);
+        // Fails early if the script is not valid.
+        parse();
+    }
+
+    @Benchmark
+    public VtlParser.StartContext parse() {
+        var cold = "cold".equals(cache);
+
+        var lexer = new VtlLexer(CharStreams.fromString(script));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(FAIL);
+        if (cold) {
+            lexer.setInterpreter(new LexerATNSimulator(lexer, lexer.getATN(), emptyCache(lexer.getATN()),
+                    new PredictionContextCache()));
+        }
+
+        var parser = new VtlParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(FAIL);
+        if (cold) {
+            parser.setInterpreter(new ParserATNSimulator(parser, parser.getATN(), emptyCache(parser.getATN()),
+                    new PredictionContextCache()));
+        }
+        if ("SLL".equals(mode)) {
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(new BailErrorStrategy());
+        }
+        return parser.start();
+    }
+}
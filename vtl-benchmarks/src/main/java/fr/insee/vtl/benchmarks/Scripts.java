@@ -0,0 +1,108 @@
+package fr.insee.vtl.benchmarks;
+
+import java.util.StringJoiner;
+
+/**
+ * <code>Scripts</code> generates the synthetic VTL scripts used by the parser benchmarks.
+ */
+public final class Scripts {
+
+    /**
+     * Depth of the expressions of {@link Shape#NESTED} statements.
+     */
+    static final int NESTING_DEPTH = 32;
+
+    /**
+     * Number of constants in the lists of {@link Shape#IN_LIST} statements.
+     */
+    static final int LIST_SIZE = 200;
+
+    /**
+     * Number of rules of each {@link Shape#RULESET} statement.
+     */
+    static final int RULES = 10;
+
+    /**
+     * Kind of statements of the generated scripts.
+     */
+    public enum Shape {
+        /**
+         * Assignments of short arithmetic, comparison and string expressions.
+         */
+        ASSIGNMENT,
+        /**
+         * Assignments of deeply nested expressions.
+         */
+        NESTED,
+        /**
+         * Assignments of membership tests against long lists of constants.
+         */
+        IN_LIST,
+        /**
+         * Data point ruleset definitions.
+         */
+        RULESET
+    }
+
+    private Scripts() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Generates a script.
+     *
+     * @param shape      The kind of statements of the script.
+     * @param statements The number of statements of the script.
+     * @return The text of the script.
+     */
+    static String generate(Shape shape, int statements) {
+        var script = new StringBuilder();
+        for (int i = 0; i < statements; i++) {
+            switch (shape) {
+                case ASSIGNMENT:
+                    script.append("v").append(i).append(" := ")
+                            .append("(a + ").append(i).append(") * 2 > b and c = \"value").append(i)
+                            .append("\" or upper(d || \"x\") <> e;\n");
+                    break;
+                case NESTED:
+                    script.append("v").append(i).append(" := ").append(nested(NESTING_DEPTH)).append(";\n");
+                    break;
+                case IN_LIST:
+                    script.append("v").append(i).append(" := a in ").append(list(i)).append(";\n");
+                    break;
+                case RULESET:
+                    script.append(ruleset(i)).append(";\n");
+                    break;
+                default:
+                    throw new UnsupportedOperationException("unknown shape " + shape);
+            }
+        }
+        return script.toString();
+    }
+
+    private static String nested(int depth) {
+        if (depth == 0) {
+            return "a";
+        }
+        var operator = depth % 3 == 0 ? " * " : depth % 3 == 1 ? " + " : " - ";
+        return "(" + nested(depth - 1) + operator + depth + ")";
+    }
+
+    private static String list(int offset) {
+        var list = new StringJoiner(", ", "{", "}");
+        for (int i = 0; i < LIST_SIZE; i++) {
+            list.add(String.valueOf(offset + i));
+        }
+        return list.toString();
+    }
+
+    private static String ruleset(int index) {
+        var rules = new StringJoiner(";\n    ");
+        for (int i = 0; i < RULES; i++) {
+            rules.add("r" + i + " : when a > " + i + " then b >= a * " + i +
+                    " errorcode \"E" + index + "_" + i + "\" errorlevel " + i);
+        }
+        return "define datapoint ruleset dpr" + index + " (variable a, b) is\n    " + rules +
+                "\nend datapoint ruleset";
+    }
+}
@@ -0,0 +1,177 @@
+package fr.insee.vtl.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <code>ScriptCache</code> is a bounded cache of compiled scripts used by the VTL script engine.
+ * <p>
+ * Scripts are cached by their text and the types, in the bindings they are evaluated with, of the variables they read.
+ * Other variables, such as the ones a script assigns, do not affect the cache. When the cache is full, the least
+ * recently used script is evicted. The cache is thread-safe and counts its hits, misses and evictions.
+ */
+public class ScriptCache {
+
+    /**
+     * The default number of scripts kept in the cache.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final Map<Key, VtlCompiledScript> scripts;
+    private final Map<String, Set<String>> variables;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor taking the maximum number of scripts kept in the cache.
+     *
+     * @param capacity The maximum number of scripts kept in the cache, <code>0</code> disables the cache.
+     */
+    public ScriptCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("negative capacity " + capacity);
+        }
+        this.capacity = capacity;
+        this.scripts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, VtlCompiledScript> eldest) {
+                if (size() > ScriptCache.this.capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        // The variables read by each script text, kept for the scripts recently looked up.
+        this.variables = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+                return size() > ScriptCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the script compiled from the given text for bindings with the same types.
+     *
+     * @param script   The text of the script.
+     * @param bindings The bindings the script is evaluated with.
+     * @return The compiled script or <code>null</code> if it is not in the cache.
+     */
+    VtlCompiledScript get(String script, Map<String, Object> bindings) {
+        VtlCompiledScript compiled = null;
+        synchronized (scripts) {
+            var read = variables.get(script);
+            if (read != null) {
+                compiled = scripts.get(new Key(script, VtlCompiledScript.signature(bindings, read)));
+            }
+        }
+        (compiled != null ? hits : misses).incrementAndGet();
+        return compiled;
+    }
+
+    /**
+     * Adds a compiled script to the cache.
+     *
+     * @param script   The text of the script.
+     * @param bindings The bindings the script was compiled for.
+     * @param compiled The script compiled for these bindings.
+     */
+    void put(String script, Map<String, Object> bindings, VtlCompiledScript compiled) {
+        Objects.requireNonNull(compiled);
+        if (capacity == 0) {
+            return;
+        }
+        var read = compiled.getVariables();
+        synchronized (scripts) {
+            variables.put(script, read);
+            scripts.put(new Key(script, VtlCompiledScript.signature(bindings, read)), compiled);
+        }
+    }
+
+    /**
+     * Removes all the scripts from the cache. The counters are left untouched.
+     */
+    public void clear() {
+        synchronized (scripts) {
+            scripts.clear();
+            variables.clear();
+        }
+    }
+
+    /**
+     * Returns the number of scripts in the cache.
+     *
+     * @return The number of scripts in the cache.
+     */
+    public int size() {
+        synchronized (scripts) {
+            return scripts.size();
+        }
+    }
+
+    /**
+     * Returns the maximum number of scripts kept in the cache.
+     *
+     * @return The maximum number of scripts kept in the cache.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of lookups that found a compiled script.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that did not find a compiled script.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of scripts evicted because the cache was full.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private static class Key {
+
+        private final String script;
+        private final Map<String, Object> signature;
+
+        Key(String script, Map<String, Object> signature) {
+            this.script = Objects.requireNonNull(script);
+            this.signature = Objects.requireNonNull(signature);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return script.equals(key.script) && signature.equals(key.signature);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(script, signature);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package fr.insee.vtl.engine;
+
+import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.engine.exceptions.VtlScriptException;
+import fr.insee.vtl.engine.visitors.AssignmentVisitor;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.Structured;
+import fr.insee.vtl.model.TypedExpression;
+import fr.insee.vtl.parser.VtlParser;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import java.util.*;
+
+/**
+ * <code>VtlCompiledScript</code> is a VTL script parsed and analyzed once and evaluated as many times as needed.
+ * <p>
+ * The script is analyzed against the types of the variables it reads (the structure of the datasets, the type of the
+ * other values). Evaluating the script with bindings whose variables have the same types reuses the analyzed
+ * statements; otherwise the statements are analyzed again from the parse tree, without parsing the script again.
+ */
+public class VtlCompiledScript extends CompiledScript {
+
+    private final ScriptEngine engine;
+    private final VtlParser.StartContext tree;
+    private final Set<String> variables;
+    private volatile Plan plan;
+
+    /**
+     * Constructor taking the engine and the parse tree of the script.
+     *
+     * @param engine   The script engine that compiled the script.
+     * @param tree     The parse tree of the script.
+     * @param bindings The bindings to analyze the script against.
+     * @throws VtlScriptException In case of error during the analysis.
+     */
+    VtlCompiledScript(ScriptEngine engine, VtlParser.StartContext tree, Bindings bindings) throws VtlScriptException {
+        this.engine = Objects.requireNonNull(engine);
+        this.tree = Objects.requireNonNull(tree);
+        this.variables = Collections.unmodifiableSet(readVariables(tree));
+        this.plan = analyze(bindings);
+    }
+
+    /**
+     * Returns the variables the script reads before assigning them, whose types the analysis depends on.
+     *
+     * @return The names of the variables read by the script.
+     */
+    Set<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Returns the variables the script reads before assigning them.
+     */
+    private static Set<String> readVariables(VtlParser.StartContext tree) {
+        Set<String> variables = new LinkedHashSet<>();
+        Set<String> assigned = new HashSet<>();
+        for (VtlParser.StatementContext statement : tree.statement()) {
+            collectVariables(statement, variables, assigned);
+            if (statement instanceof VtlParser.TemporaryAssignmentContext) {
+                assigned.add(((VtlParser.TemporaryAssignmentContext) statement).varID().getText());
+            }
+        }
+        return variables;
+    }
+
+    private static void collectVariables(ParseTree tree, Set<String> variables, Set<String> assigned) {
+        if (tree instanceof VtlParser.VarIdExprContext) {
+            // Includes the components read in clauses, which is harmless.
+            if (!assigned.contains(tree.getText())) {
+                variables.add(tree.getText());
+            }
+            return;
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            collectVariables(tree.getChild(i), variables, assigned);
+        }
+    }
+
+    /**
+     * Returns the types of the given variables in the given bindings: the structure of the datasets and the class
+     * of the other values.
+     *
+     * @param bindings  The bindings.
+     * @param variables The names of the variables.
+     * @return A map between the names of the variables present in the bindings and their types.
+     */
+    static Map<String, Object> signature(Map<String, Object> bindings, Collection<String> variables) {
+        Map<String, Object> signature = new HashMap<>();
+        for (String variable : variables) {
+            if (bindings.containsKey(variable)) {
+                Object value = bindings.get(variable);
+                if (value instanceof Structured) {
+                    signature.put(variable, ((Structured) value).getDataStructure());
+                } else {
+                    signature.put(variable, value == null ? null : value.getClass());
+                }
+            }
+        }
+        return signature;
+    }
+
+    private Map<String, Object> signature(Bindings bindings) {
+        return signature(bindings, variables);
+    }
+
+    /**
+     * Returns the types of the variables the script reads: the structure of the datasets and the class of the other
+     * values. The analyzed statements may keep a reference to the environment they are analyzed in, which must not
+     * hold the values of the bindings.
+     */
+    private Map<String, Object> environment(Bindings bindings) {
+        Map<String, Object> environment = new HashMap<>();
+        for (String variable : variables) {
+            if (!bindings.containsKey(variable)) {
+                continue;
+            }
+            Object value = bindings.get(variable);
+            if (value instanceof Structured) {
+                var structure = ((Structured) value).getDataStructure();
+                environment.put(variable, (Structured) () -> structure);
+            } else if (value == null || value instanceof TypedExpression || value instanceof Dataset.Component) {
+                environment.put(variable, value);
+            } else {
+                var type = value.getClass();
+                environment.put(variable, (TypedExpression) () -> type);
+            }
+        }
+        return environment;
+    }
+
+    private Plan analyze(Bindings bindings) throws VtlScriptException {
+        try {
+            AssignmentVisitor assignmentVisitor = new AssignmentVisitor(environment(bindings));
+            List<ResolvableExpression> statements = new ArrayList<>();
+            for (VtlParser.StatementContext statement : tree.statement()) {
+                ResolvableExpression expression = assignmentVisitor.visit(statement);
+                if (expression != null) {
+                    statements.add(expression);
+                }
+            }
+            return new Plan(signature(bindings), statements);
+        } catch (VtlRuntimeException vre) {
+            throw vre.getCause();
+        }
+    }
+
+    /**
+     * Evaluates the script in a given context.
+     *
+     * @param context The evaluation context (for example: data bindings).
+     * @return The result of the evaluation of the last statement of the script.
+     * @throws VtlScriptException In case of error during the analysis or the evaluation.
+     */
+    @Override
+    public Object eval(ScriptContext context) throws VtlScriptException {
+        Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+        Plan plan = this.plan;
+        if (!plan.signature.equals(signature(bindings))) {
+            plan = analyze(bindings);
+            this.plan = plan;
+        }
+        try {
+            Object lastValue = null;
+            for (ResolvableExpression statement : plan.statements) {
+                lastValue = statement.resolve(bindings);
+            }
+            return lastValue;
+        } catch (VtlRuntimeException vre) {
+            throw vre.getCause();
+        }
+    }
+
+    @Override
+    public ScriptEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Statements analyzed against the given types of variables.
+     */
+    private static class Plan {
+
+        private final Map<String, Object> signature;
+        private final List<ResolvableExpression> statements;
+
+        Plan(Map<String, Object> signature, List<ResolvableExpression> statements) {
+            this.signature = signature;
+            this.statements = statements;
+        }
+    }
+}
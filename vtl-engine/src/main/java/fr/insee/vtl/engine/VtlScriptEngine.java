@@ -1,24 +1,72 @@
 package fr.insee.vtl.engine;
 
-import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
 import fr.insee.vtl.engine.exceptions.VtlScriptException;
-import fr.insee.vtl.engine.visitors.AssignmentVisitor;
 import fr.insee.vtl.parser.VtlLexer;
 import fr.insee.vtl.parser.VtlParser;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CodePointCharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 import javax.script.*;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * <code>VtlScriptEngine</code> provides base methods for the VTL script engine.
+ * <p>
+ * The engine is <code>Compilable</code>: a compiled script is parsed and analyzed once and can then be evaluated
+ * repeatedly against different bindings. Scripts evaluated with the <code>eval</code> methods are compiled through a
+ * {@link ScriptCache}, so that recurring scripts are neither parsed nor analyzed again.
  */
-public class VtlScriptEngine extends AbstractScriptEngine {
+public class VtlScriptEngine extends AbstractScriptEngine implements Compilable {
+
+    /**
+     * Name of the engine scope binding selecting the parsing mode, as a {@link ParsingMode} or its name.
+     */
+    public static final String PARSING_MODE = "$vtl.engine.parsing_mode";
+
+    /**
+     * Name of the engine scope binding giving the memory budget of each aggregation, in bytes, as a number or a
+     * string. Aggregations whose groups exceed the budget write them to temporary files.
+     *
+     * @see fr.insee.vtl.engine.aggregation.HashAggregation#DEFAULT_MEMORY_BUDGET
+     */
+    public static final String AGGREGATION_MEMORY = "$vtl.engine.aggregation_memory";
+
+    /**
+     * Name of the engine scope binding giving the number of partitions of the joins, as a positive number or a string.
+     * When it is greater than one, both sides of a join are partitioned on the hash of their key and the partitions
+     * are joined in parallel on the common fork-join pool, as soon as the join is resolved. The joined data points
+     * are then kept in memory. Joins are executed on the calling thread, as they are streamed, by default.
+     *
+     * @see fr.insee.vtl.engine.join.Join#apply(fr.insee.vtl.model.Dataset, fr.insee.vtl.model.Dataset, int)
+     */
+    public static final String JOIN_PARTITIONS = "$vtl.engine.join_partitions";
+
+    /**
+     * Parsing strategies of the engine.
+     */
+    public enum ParsingMode {
+        /**
+         * Parses with the full LL prediction of ANTLR.
+         */
+        LL,
+        /**
+         * Parses with the faster SLL prediction first, and with the full LL prediction only if SLL fails.
+         * The result is the same as with {@link #LL}.
+         */
+        SLL
+    }
 
     private final ScriptEngineFactory factory;
+    private final ScriptCache cache;
 
     /**
      * Constructor taking a script engine factory.
@@ -26,7 +74,97 @@ public class VtlScriptEngine extends AbstractScriptEngine {
      * @param factory The script engine factory associated to the script engine to create.
      */
     public VtlScriptEngine(ScriptEngineFactory factory) {
+        this(factory, ScriptCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor taking a script engine factory and the capacity of the script cache.
+     *
+     * @param factory       The script engine factory associated to the script engine to create.
+     * @param cacheCapacity The maximum number of compiled scripts kept by the engine, <code>0</code> disables the cache.
+     */
+    public VtlScriptEngine(ScriptEngineFactory factory, int cacheCapacity) {
         this.factory = factory;
+        this.cache = new ScriptCache(cacheCapacity);
+    }
+
+    /**
+     * Base method for the compilation of a script.
+     *
+     * @param stream  The script to compile represented as a stream of Unicode code points.
+     * @param context The context whose bindings give the types of the variables used by the script.
+     * @return The compiled script.
+     * @throws VtlScriptException In case of error during the analysis of the script.
+     */
+    private VtlCompiledScript compileStream(CodePointCharStream stream, ScriptContext context) throws VtlScriptException {
+        VtlLexer lexer = new VtlLexer(stream);
+        VtlParser parser = new VtlParser(new CommonTokenStream(lexer));
+        Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+        VtlParser.StartContext tree = parse(parser, getParsingMode(bindings));
+        return new VtlCompiledScript(this, tree, bindings);
+    }
+
+    /**
+     * Returns the value of an engine option, one of the <code>$vtl.engine</code> bindings.
+     *
+     * @param context      The context the option is read from, for instance the engine scope bindings.
+     * @param name         The name of the option.
+     * @param defaultValue The value of the option when it is not set.
+     * @param converter    The function converting the value of the binding.
+     * @param <T>          The type of the option.
+     * @return The converted value of the option, or the default value.
+     * @throws IllegalArgumentException If the value of the binding cannot be converted.
+     */
+    public static <T> T getOption(Map<String, Object> context, String name, T defaultValue,
+                                  Function<Object, T> converter) {
+        Object value = context.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return converter.apply(value);
+        } catch (IllegalArgumentException iae) {
+            throw new IllegalArgumentException("invalid value " + value + " for " + name, iae);
+        }
+    }
+
+    /**
+     * Returns the parsing mode selected in a given context.
+     *
+     * @param context The context of the engine, for instance the engine scope bindings.
+     * @return The parsing mode selected with the {@link #PARSING_MODE} binding, {@link ParsingMode#LL} by default.
+     */
+    private static ParsingMode getParsingMode(Map<String, Object> context) {
+        return getOption(context, PARSING_MODE, ParsingMode.LL, mode -> mode instanceof ParsingMode
+                ? (ParsingMode) mode
+                : ParsingMode.valueOf(mode.toString().toUpperCase()));
+    }
+
+    /**
+     * Parses a script with the given parsing mode.
+     *
+     * @param parser The parser of the script.
+     * @param mode   The parsing mode.
+     * @return The parse tree of the script.
+     */
+    static VtlParser.StartContext parse(VtlParser parser, ParsingMode mode) {
+        if (mode == ParsingMode.LL) {
+            return parser.start();
+        }
+        // First try the faster SLL prediction, giving up at the first error.
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            return parser.start();
+        } catch (ParseCancellationException pce) {
+            // Either the script is invalid or SLL is not powerful enough: parse it again with full LL.
+            parser.reset();
+            parser.addErrorListener(ConsoleErrorListener.INSTANCE);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            return parser.start();
+        }
     }
 
     /**
@@ -38,19 +176,14 @@ public class VtlScriptEngine extends AbstractScriptEngine {
      * @throws VtlScriptException In case of error during the evaluation.
      */
     private Object evalStream(CodePointCharStream stream, ScriptContext context) throws VtlScriptException {
-        try {
-            VtlLexer lexer = new VtlLexer(stream);
-            VtlParser parser = new VtlParser(new CommonTokenStream(lexer));
-
-            AssignmentVisitor assignmentVisitor = new AssignmentVisitor(context);
-            Object lastValue = null;
-            for (VtlParser.StatementContext stmt : parser.start().statement()) {
-                lastValue = assignmentVisitor.visit(stmt);
-            }
-            return lastValue;
-        } catch (VtlRuntimeException vre) {
-            throw vre.getCause();
+        Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+        String script = stream.toString();
+        VtlCompiledScript compiled = cache.get(script, bindings);
+        if (compiled == null) {
+            compiled = compileStream(stream, context);
+            cache.put(script, bindings, compiled);
         }
+        return compiled.eval(context);
     }
 
     /**
@@ -85,6 +218,34 @@ public class VtlScriptEngine extends AbstractScriptEngine {
         }
     }
 
+    /**
+     * Compiles a script (represented as a string) against the bindings of the engine context.
+     *
+     * @param script The script to compile represented as a string.
+     * @return The compiled script.
+     * @throws VtlScriptException In case of error during the analysis of the script.
+     */
+    @Override
+    public CompiledScript compile(String script) throws VtlScriptException {
+        return compileStream(CharStreams.fromString(script), getContext());
+    }
+
+    /**
+     * Compiles a script (read in a <code>Reader</code>) against the bindings of the engine context.
+     *
+     * @param reader The <code>Reader</code> containing the script to compile.
+     * @return The compiled script.
+     * @throws ScriptException In case of error during the analysis of the script.
+     */
+    @Override
+    public CompiledScript compile(Reader reader) throws ScriptException {
+        try {
+            return compileStream(CharStreams.fromReader(reader), getContext());
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+    }
+
     /**
      * Returns an new instance of script context bindings.
      *
@@ -95,6 +256,15 @@ public class VtlScriptEngine extends AbstractScriptEngine {
         return new SimpleBindings();
     }
 
+    /**
+     * Returns the cache of the scripts evaluated by the engine.
+     *
+     * @return The script cache of the engine.
+     */
+    public ScriptCache getCache() {
+        return cache;
+    }
+
     /**
      * Returns the script engine factory associated to the script engine.
      *
@@ -0,0 +1,577 @@
+package fr.insee.vtl.engine.aggregation;
+
+import fr.insee.vtl.model.DoubleExpression;
+import fr.insee.vtl.model.LongExpression;
+import fr.insee.vtl.model.ResolvableExpression;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * States of an aggregate function for all the groups of an aggregation, stored column-wise in primitive arrays
+ * indexed by group.
+ * <p>
+ * The state of a group can be written to a file and merged back from it, which lets the aggregation spill groups to
+ * disk.
+ */
+abstract class Accumulator {
+
+    /**
+     * Flag telling if the value of the current data point is null, reused for each data point.
+     */
+    final boolean[] isNull = new boolean[1];
+
+    /**
+     * Adds the value of a data point to a group.
+     *
+     * @param group   The index of the group.
+     * @param context The data point.
+     */
+    abstract void add(int group, Map<String, Object> context);
+
+    /**
+     * Returns the result of a group.
+     *
+     * @param group The index of the group.
+     * @return The result of the function for the group, or <code>null</code>.
+     */
+    abstract Object result(int group);
+
+    /**
+     * Grows the states so that they can hold the given number of groups.
+     *
+     * @param capacity The new number of groups.
+     */
+    abstract void grow(int capacity);
+
+    /**
+     * Writes the state of a group.
+     *
+     * @param group The index of the group.
+     * @param out   The output to write to.
+     * @throws IOException If the state cannot be written.
+     */
+    abstract void write(int group, DataOutput out) throws IOException;
+
+    /**
+     * Reads a state written by {@link #write(int, DataOutput)} and merges it into a group.
+     *
+     * @param group The index of the group.
+     * @param in    The input to read from.
+     * @throws IOException If the state cannot be read.
+     */
+    abstract void read(int group, DataInput in) throws IOException;
+
+    /**
+     * Returns an estimate of the memory used by the states of the groups.
+     *
+     * @param groups The number of groups.
+     * @return The estimated size in bytes.
+     */
+    abstract long estimateSize(int groups);
+
+    static class Count extends Accumulator {
+
+        private final ResolvableExpression expression;
+        long[] counts;
+
+        Count(ResolvableExpression expression, int capacity) {
+            this.expression = expression;
+            this.counts = new long[capacity];
+        }
+
+        @Override
+        void add(int group, Map<String, Object> context) {
+            if (expression.resolve(context) != null) {
+                counts[group]++;
+            }
+        }
+
+        @Override
+        Object result(int group) {
+            return counts[group];
+        }
+
+        @Override
+        void grow(int capacity) {
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        @Override
+        void write(int group, DataOutput out) throws IOException {
+            out.writeLong(counts[group]);
+        }
+
+        @Override
+        void read(int group, DataInput in) throws IOException {
+            counts[group] += in.readLong();
+        }
+
+        @Override
+        long estimateSize(int groups) {
+            return groups * 8L;
+        }
+    }
+
+    static class LongSum extends Accumulator {
+
+        private final LongExpression expression;
+        long[] sums;
+        long[] counts;
+
+        LongSum(LongExpression expression, int capacity) {
+            this.expression = expression;
+            this.sums = new long[capacity];
+            this.counts = new long[capacity];
+        }
+
+        @Override
+        void add(int group, Map<String, Object> context) {
+            isNull[0] = false;
+            long value = expression.resolveLong(context, isNull);
+            if (!isNull[0]) {
+                sums[group] += value;
+                counts[group]++;
+            }
+        }
+
+        @Override
+        Object result(int group) {
+            return counts[group] == 0 ? null : sums[group];
+        }
+
+        @Override
+        void grow(int capacity) {
+            sums = Arrays.copyOf(sums, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        @Override
+        void write(int group, DataOutput out) throws IOException {
+            out.writeLong(sums[group]);
+            out.writeLong(counts[group]);
+        }
+
+        @Override
+        void read(int group, DataInput in) throws IOException {
+            sums[group] += in.readLong();
+            counts[group] += in.readLong();
+        }
+
+        @Override
+        long estimateSize(int groups) {
+            return groups * 16L;
+        }
+    }
+
+    static class DoubleSum extends Accumulator {
+
+        private final DoubleExpression expression;
+        double[] sums;
+        long[] counts;
+
+        DoubleSum(DoubleExpression expression, int capacity) {
+            this.expression = expression;
+            this.sums = new double[capacity];
+            this.counts = new long[capacity];
+        }
+
+        @Override
+        void add(int group, Map<String, Object> context) {
+            isNull[0] = false;
+            double value = expression.resolveDouble(context, isNull);
+            if (!isNull[0]) {
+                sums[group] += value;
+                counts[group]++;
+            }
+        }
+
+        @Override
+        Object result(int group) {
+            return counts[group] == 0 ? null : sums[group];
+        }
+
+        @Override
+        void grow(int capacity) {
+            sums = Arrays.copyOf(sums, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        @Override
+        void write(int group, DataOutput out) throws IOException {
+            out.writeDouble(sums[group]);
+            out.writeLong(counts[group]);
+        }
+
+        @Override
+        void read(int group, DataInput in) throws IOException {
+            sums[group] += in.readDouble();
+            counts[group] += in.readLong();
+        }
+
+        @Override
+        long estimateSize(int groups) {
+            return groups * 16L;
+        }
+    }
+
+    static class Average extends DoubleSum {
+
+        Average(DoubleExpression expression, int capacity) {
+            super(expression, capacity);
+        }
+
+        @Override
+        Object result(int group) {
+            return counts[group] == 0 ? null : sums[group] / counts[group];
+        }
+    }
+
+    static class LongExtremum extends Accumulator {
+
+        private final LongExpression expression;
+        private final boolean min;
+        long[] values;
+        boolean[] present;
+
+        LongExtremum(LongExpression expression, boolean min, int capacity) {
+            this.expression = expression;
+            this.min = min;
+            this.values = new long[capacity];
+            this.present = new boolean[capacity];
+        }
+
+        private void accept(int group, long value) {
+            if (!present[group] || (min ? value < values[group] : value > values[group])) {
+                values[group] = value;
+                present[group] = true;
+            }
+        }
+
+        @Override
+        void add(int group, Map<String, Object> context) {
+            isNull[0] = false;
+            long value = expression.resolveLong(context, isNull);
+            if (!isNull[0]) {
+                accept(group, value);
+            }
+        }
+
+        @Override
+        Object result(int group) {
+            return present[group] ? values[group] : null;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            present = Arrays.copyOf(present, capacity);
+        }
+
+        @Override
+        void write(int group, DataOutput out) throws IOException {
+            out.writeBoolean(present[group]);
+            out.writeLong(values[group]);
+        }
+
+        @Override
+        void read(int group, DataInput in) throws IOException {
+            var otherPresent = in.readBoolean();
+            var value = in.readLong();
+            if (otherPresent) {
+                accept(group, value);
+            }
+        }
+
+        @Override
+        long estimateSize(int groups) {
+            return groups * 9L;
+        }
+    }
+
+    static class DoubleExtremum extends Accumulator {
+
+        private final DoubleExpression expression;
+        private final boolean min;
+        double[] values;
+        boolean[] present;
+
+        DoubleExtremum(DoubleExpression expression, boolean min, int capacity) {
+            this.expression = expression;
+            this.min = min;
+            this.values = new double[capacity];
+            this.present = new boolean[capacity];
+        }
+
+        private void accept(int group, double value) {
+            if (!present[group] || (min ? value < values[group] : value > values[group])) {
+                values[group] = value;
+                present[group] = true;
+            }
+        }
+
+        @Override
+        void add(int group, Map<String, Object> context) {
+            isNull[0] = false;
+            double value = expression.resolveDouble(context, isNull);
+            if (!isNull[0]) {
+                accept(group, value);
+            }
+        }
+
+        @Override
+        Object result(int group) {
+            return present[group] ? values[group] : null;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            present = Arrays.copyOf(present, capacity);
+        }
+
+        @Override
+        void write(int group, DataOutput out) throws IOException {
+            out.writeBoolean(present[group]);
+            out.writeDouble(values[group]);
+        }
+
+        @Override
+        void read(int group, DataInput in) throws IOException {
+            var otherPresent = in.readBoolean();
+            var value = in.readDouble();
+            if (otherPresent) {
+                accept(group, value);
+            }
+        }
+
+        @Override
+        long estimateSize(int groups) {
+            return groups * 9L;
+        }
+    }
+
+    /**
+     * Minimum or maximum of comparable values, such as strings.
+     */
+    static class Extremum extends Accumulator {
+
+        private final ResolvableExpression expression;
+        private final boolean min;
+        Object[] values;
+
+        Extremum(ResolvableExpression expression, boolean min, int capacity) {
+            this.expression = expression;
+            this.min = min;
+            this.values = new Object[capacity];
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private void accept(int group, Object value) {
+            if (value == null) {
+                return;
+            }
+            var current = values[group];
+            if (current == null) {
+                values[group] = value;
+                return;
+            }
+            var comparison = ((Comparable) value).compareTo(current);
+            if (min ? comparison < 0 : comparison > 0) {
+                values[group] = value;
+            }
+        }
+
+        @Override
+        void add(int group, Map<String, Object> context) {
+            accept(group, expression.resolve(context));
+        }
+
+        @Override
+        Object result(int group) {
+            return values[group];
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void write(int group, DataOutput out) throws IOException {
+            SpillFile.writeValue(out, values[group]);
+        }
+
+        @Override
+        void read(int group, DataInput in) throws IOException {
+            accept(group, SpillFile.readValue(in));
+        }
+
+        @Override
+        long estimateSize(int groups) {
+            return groups * (8L + SpillFile.VALUE_SIZE);
+        }
+    }
+
+    /**
+     * Variance and standard deviation, computed in a single pass with Welford's algorithm. Partial states are merged
+     * with the formula of Chan et al.
+     */
+    static class Variance extends Accumulator {
+
+        private final DoubleExpression expression;
+        private final AggregateFunction.Operator operator;
+        long[] counts;
+        double[] means;
+        double[] squares;
+
+        Variance(DoubleExpression expression, AggregateFunction.Operator operator, int capacity) {
+            this.expression = expression;
+            this.operator = operator;
+            this.counts = new long[capacity];
+            this.means = new double[capacity];
+            this.squares = new double[capacity];
+        }
+
+        @Override
+        void add(int group, Map<String, Object> context) {
+            isNull[0] = false;
+            double value = expression.resolveDouble(context, isNull);
+            if (!isNull[0]) {
+                var count = ++counts[group];
+                var delta = value - means[group];
+                means[group] += delta / count;
+                squares[group] += delta * (value - means[group]);
+            }
+        }
+
+        private void merge(int group, long otherCount, double otherMean, double otherSquares) {
+            if (otherCount == 0) {
+                return;
+            }
+            var count = counts[group] + otherCount;
+            var delta = otherMean - means[group];
+            means[group] += delta * otherCount / count;
+            squares[group] += otherSquares + delta * delta * counts[group] * otherCount / count;
+            counts[group] = count;
+        }
+
+        @Override
+        Object result(int group) {
+            var count = counts[group];
+            var sample = operator == AggregateFunction.Operator.VAR_SAMP
+                    || operator == AggregateFunction.Operator.STDDEV_SAMP;
+            if (count == 0 || (sample && count == 1)) {
+                return null;
+            }
+            var variance = squares[group] / (sample ? count - 1 : count);
+            return operator == AggregateFunction.Operator.STDDEV_POP || operator == AggregateFunction.Operator.STDDEV_SAMP
+                    ? Math.sqrt(variance)
+                    : variance;
+        }
+
+        @Override
+        void grow(int capacity) {
+            counts = Arrays.copyOf(counts, capacity);
+            means = Arrays.copyOf(means, capacity);
+            squares = Arrays.copyOf(squares, capacity);
+        }
+
+        @Override
+        void write(int group, DataOutput out) throws IOException {
+            out.writeLong(counts[group]);
+            out.writeDouble(means[group]);
+            out.writeDouble(squares[group]);
+        }
+
+        @Override
+        void read(int group, DataInput in) throws IOException {
+            merge(group, in.readLong(), in.readDouble(), in.readDouble());
+        }
+
+        @Override
+        long estimateSize(int groups) {
+            return groups * 24L;
+        }
+    }
+
+    /**
+     * Median, keeping the values of each group in a primitive array.
+     */
+    static class Median extends Accumulator {
+
+        private final DoubleExpression expression;
+        double[][] values;
+        int[] sizes;
+        private long valueCount;
+
+        Median(DoubleExpression expression, int capacity) {
+            this.expression = expression;
+            this.values = new double[capacity][];
+            this.sizes = new int[capacity];
+        }
+
+        private void accept(int group, double value) {
+            var groupValues = values[group];
+            if (groupValues == null) {
+                groupValues = values[group] = new double[8];
+            } else if (sizes[group] == groupValues.length) {
+                groupValues = values[group] = Arrays.copyOf(groupValues, groupValues.length * 2);
+            }
+            groupValues[sizes[group]++] = value;
+            valueCount++;
+        }
+
+        @Override
+        void add(int group, Map<String, Object> context) {
+            isNull[0] = false;
+            double value = expression.resolveDouble(context, isNull);
+            if (!isNull[0]) {
+                accept(group, value);
+            }
+        }
+
+        @Override
+        Object result(int group) {
+            var size = sizes[group];
+            if (size == 0) {
+                return null;
+            }
+            var groupValues = values[group];
+            Arrays.sort(groupValues, 0, size);
+            var middle = size / 2;
+            return size % 2 == 1 ? groupValues[middle] : (groupValues[middle - 1] + groupValues[middle]) / 2;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+
+        @Override
+        void write(int group, DataOutput out) throws IOException {
+            out.writeInt(sizes[group]);
+            for (int i = 0; i < sizes[group]; i++) {
+                out.writeDouble(values[group][i]);
+            }
+        }
+
+        @Override
+        void read(int group, DataInput in) throws IOException {
+            var size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                accept(group, in.readDouble());
+            }
+        }
+
+        @Override
+        long estimateSize(int groups) {
+            // Array references and headers, plus the values, counting the unused capacity once more.
+            return groups * 28L + valueCount * 16L;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package fr.insee.vtl.engine.aggregation;
+
+import fr.insee.vtl.model.DoubleExpression;
+import fr.insee.vtl.model.LongExpression;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.TypedExpression;
+
+import java.util.Objects;
+
+/**
+ * <code>AggregateFunction</code> represents an aggregate operator applied to an expression evaluated for each data
+ * point of a group.
+ * <p>
+ * Null values are ignored. The result is null when a group has no value, except for <code>count</code>.
+ */
+public class AggregateFunction implements TypedExpression {
+
+    /**
+     * The aggregate operators.
+     */
+    public enum Operator {
+        COUNT,
+        SUM,
+        AVG,
+        MEDIAN,
+        MIN,
+        MAX,
+        STDDEV_POP,
+        STDDEV_SAMP,
+        VAR_POP,
+        VAR_SAMP
+    }
+
+    private final Operator operator;
+    private final ResolvableExpression expression;
+
+    /**
+     * Constructor taking the operator and the expression it aggregates.
+     *
+     * @param operator   The aggregate operator.
+     * @param expression The expression evaluated for each data point.
+     * @throws IllegalArgumentException If the operator needs numbers and the expression is not numeric.
+     */
+    public AggregateFunction(Operator operator, ResolvableExpression expression) {
+        this.operator = Objects.requireNonNull(operator);
+        this.expression = Objects.requireNonNull(expression);
+        if (operator != Operator.COUNT && operator != Operator.MIN && operator != Operator.MAX && !isNumber()) {
+            throw new IllegalArgumentException(operator + " expects a number, got " + expression.getType());
+        }
+    }
+
+    private boolean isNumber() {
+        return Long.class.equals(expression.getType()) || Double.class.equals(expression.getType());
+    }
+
+    private boolean isLong() {
+        return Long.class.equals(expression.getType());
+    }
+
+    /**
+     * Returns the aggregate operator.
+     *
+     * @return The aggregate operator.
+     */
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * Returns the aggregated expression.
+     *
+     * @return The expression evaluated for each data point.
+     */
+    public ResolvableExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns the type of the result.
+     *
+     * @return <code>Long</code> for <code>count</code>, the type of the expression for <code>sum</code>,
+     * <code>min</code> and <code>max</code>, <code>Double</code> otherwise.
+     */
+    @Override
+    public Class<?> getType() {
+        switch (operator) {
+            case COUNT:
+                return Long.class;
+            case SUM:
+            case MIN:
+            case MAX:
+                return expression.getType();
+            default:
+                return Double.class;
+        }
+    }
+
+    /**
+     * Creates the accumulator of the function.
+     *
+     * @param capacity The initial number of groups.
+     * @return A new accumulator.
+     */
+    Accumulator newAccumulator(int capacity) {
+        switch (operator) {
+            case COUNT:
+                return new Accumulator.Count(expression, capacity);
+            case SUM:
+                return isLong()
+                        ? new Accumulator.LongSum(LongExpression.wrap(expression), capacity)
+                        : new Accumulator.DoubleSum(DoubleExpression.wrap(expression), capacity);
+            case AVG:
+                return new Accumulator.Average(DoubleExpression.wrap(expression), capacity);
+            case MEDIAN:
+                return new Accumulator.Median(DoubleExpression.wrap(expression), capacity);
+            case MIN:
+            case MAX:
+                var min = operator == Operator.MIN;
+                if (isLong()) {
+                    return new Accumulator.LongExtremum(LongExpression.wrap(expression), min, capacity);
+                }
+                if (Double.class.equals(expression.getType())) {
+                    return new Accumulator.DoubleExtremum(DoubleExpression.wrap(expression), min, capacity);
+                }
+                return new Accumulator.Extremum(expression, min, capacity);
+            case STDDEV_POP:
+            case STDDEV_SAMP:
+            case VAR_POP:
+            case VAR_SAMP:
+                return new Accumulator.Variance(DoubleExpression.wrap(expression), operator, capacity);
+            default:
+                throw new UnsupportedOperationException("unknown operator " + operator);
+        }
+    }
+}
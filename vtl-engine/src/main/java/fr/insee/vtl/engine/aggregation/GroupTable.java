@@ -0,0 +1,141 @@
+package fr.insee.vtl.engine.aggregation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Open addressing hash table numbering the distinct keys of data points.
+ * <p>
+ * The key of a data point is made of the values at the key positions. Data points are looked up without copying
+ * their key; the key values are only copied when a new group is created.
+ */
+final class GroupTable {
+
+    private final int[] keys;
+    private int[] slots;
+    private int[] hashes;
+    private Object[][] groupKeys;
+    private int size;
+
+    /**
+     * Constructor taking the positions of the key values in the data points.
+     *
+     * @param keys The positions of the key values.
+     */
+    GroupTable(int[] keys) {
+        this.keys = keys;
+        this.slots = new int[16];
+        this.hashes = new int[8];
+        this.groupKeys = new Object[8][];
+    }
+
+    private int hash(List<Object> row) {
+        int hash = 1;
+        for (int key : keys) {
+            hash = 31 * hash + Objects.hashCode(row.get(key));
+        }
+        // Spread the high bits, the table size being a power of two.
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean matches(int group, List<Object> row) {
+        var groupKey = groupKeys[group];
+        for (int i = 0; i < keys.length; i++) {
+            if (!Objects.equals(groupKey[i], row.get(keys[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the group of a data point, creating the group if needed. Groups are numbered from
+     * <code>0</code> in order of creation.
+     *
+     * @param row The data point.
+     * @return The index of the group.
+     */
+    int groupOf(List<Object> row) {
+        var hash = hash(row);
+        var mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            var group = slots[slot] - 1;
+            if (group < 0) {
+                return insert(slot, hash, row);
+            }
+            if (hashes[group] == hash && matches(group, row)) {
+                return group;
+            }
+        }
+    }
+
+    private int insert(int slot, int hash, List<Object> row) {
+        var group = size++;
+        if (group == hashes.length) {
+            hashes = Arrays.copyOf(hashes, group * 2);
+            groupKeys = Arrays.copyOf(groupKeys, group * 2);
+        }
+        var groupKey = new Object[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            groupKey[i] = row.get(keys[i]);
+        }
+        hashes[group] = hash;
+        groupKeys[group] = groupKey;
+        slots[slot] = group + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return group;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        var mask = slots.length - 1;
+        for (int group = 0; group < size; group++) {
+            var slot = hashes[group] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = group + 1;
+        }
+    }
+
+    /**
+     * Returns the number of groups.
+     *
+     * @return The number of groups.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the hash of the key of a group.
+     *
+     * @param group The index of the group.
+     * @return The hash of the key values.
+     */
+    int hashOf(int group) {
+        return hashes[group];
+    }
+
+    /**
+     * Returns an estimate of the memory used by the table, including the key values.
+     *
+     * @return The estimated size in bytes.
+     */
+    long estimateSize() {
+        return slots.length * 4L + hashes.length * 12L + size * (16L + keys.length * (8L + SpillFile.VALUE_SIZE));
+    }
+
+    /**
+     * Returns the key values of a group.
+     *
+     * @param group The index of the group.
+     * @return The key values, in the order of the key positions.
+     */
+    Object[] keyOf(int group) {
+        return groupKeys[group];
+    }
+}
@@ -0,0 +1,311 @@
+package fr.insee.vtl.engine.aggregation;
+
+import fr.insee.vtl.model.DataPoint;
+import fr.insee.vtl.model.DataStructure;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * <code>HashAggregation</code> groups data points by the values of key components and computes aggregate functions
+ * for each group.
+ * <p>
+ * The data points are consumed in a single pass: each one is added to the accumulators of its group, found in a hash
+ * table. The memory used is proportional to the number of groups, not to the number of data points, except for the
+ * median which keeps the values.
+ * <p>
+ * When the estimated size of the groups exceeds the memory budget, the partial states of the groups are written to
+ * temporary files, partitioned on the hash of their key, and the table starts over. Once all the data points are
+ * read, the partitions are aggregated one after the other, as the result is read, by merging the partial states of
+ * their groups. A partition that still does not fit in the budget is partitioned again on other bits of the hash.
+ */
+public class HashAggregation {
+
+    /**
+     * Memory budget used when none is given: a quarter of the maximum heap size.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Each level of partitioning uses the next four high bits of the hash, the table using the low bits.
+    private static final int PARTITION_BITS = 4;
+    private static final int PARTITIONS = 1 << PARTITION_BITS;
+    private static final int MAX_LEVEL = 4;
+    private static final int MIX = 0x9E3779B9;
+
+    // The size of the groups is checked when a group is created and every so many data points.
+    private static final int CHECK_INTERVAL = 4096;
+
+    private final DataStructure structure;
+    private final int[] keys;
+    private final int[] partialKeys;
+    private final List<AggregateFunction> functions;
+    private final Path spillDirectory;
+
+    /**
+     * Constructor taking the structure of the data points, the key components and the functions.
+     *
+     * @param structure The structure of the aggregated data points. The expressions of the functions are evaluated on
+     *                  {@link DataPoint}s sharing this structure.
+     * @param keys      The names of the components grouping the data points.
+     * @param functions The aggregate functions.
+     */
+    public HashAggregation(DataStructure structure, List<String> keys, List<AggregateFunction> functions) {
+        this(structure, keys, functions, null);
+    }
+
+    /**
+     * Constructor taking the structure of the data points, the key components, the functions and the directory of
+     * the temporary files.
+     *
+     * @param structure      The structure of the aggregated data points. The expressions of the functions are
+     *                       evaluated on {@link DataPoint}s sharing this structure.
+     * @param keys           The names of the components grouping the data points.
+     * @param functions      The aggregate functions.
+     * @param spillDirectory The directory of the temporary files, or <code>null</code> for the default temporary
+     *                       directory.
+     */
+    public HashAggregation(DataStructure structure, List<String> keys, List<AggregateFunction> functions,
+                           Path spillDirectory) {
+        this.structure = Objects.requireNonNull(structure);
+        this.keys = keys.stream().mapToInt(structure::indexOf).toArray();
+        this.partialKeys = IntStream.range(0, this.keys.length).toArray();
+        this.functions = List.copyOf(functions);
+        this.spillDirectory = spillDirectory;
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] < 0) {
+                throw new IllegalArgumentException("unknown component " + keys.get(i));
+            }
+        }
+    }
+
+    /**
+     * Aggregates data points within the default memory budget.
+     *
+     * @param dataPoints The data points, with the structure of the aggregation.
+     * @return A data point per group, made of the key values followed by the result of each function. Without keys,
+     * there is a single group, even if there are no data points.
+     * @see #aggregate(Stream, long)
+     * @see #DEFAULT_MEMORY_BUDGET
+     */
+    public Stream<List<Object>> aggregate(Stream<List<Object>> dataPoints) {
+        return aggregate(dataPoints, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Aggregates data points within a memory budget.
+     * <p>
+     * The data points are consumed, and their stream closed, when this method is called. If the groups were written
+     * to disk, the partitions are then merged one after the other as the returned stream is read, so that only the
+     * groups of one partition are in memory at a time. Each temporary file is deleted once merged; closing the
+     * returned stream deletes the remaining ones.
+     *
+     * @param dataPoints   The data points, with the structure of the aggregation.
+     * @param memoryBudget The estimated size in bytes of the groups above which they are written to disk.
+     * @return A data point per group, made of the key values followed by the result of each function. Without keys,
+     * there is a single group, even if there are no data points. The groups are in no particular order.
+     * @throws UncheckedIOException If the temporary files cannot be written or read.
+     */
+    public Stream<List<Object>> aggregate(Stream<List<Object>> dataPoints, long memoryBudget) {
+        var groups = new Groups(keys);
+        Partitions partitions = null;
+        try (dataPoints) {
+            Iterator<List<Object>> iterator = dataPoints.iterator();
+            long count = 0;
+            while (iterator.hasNext()) {
+                var row = iterator.next();
+                var size = groups.size();
+                var group = groups.groupOf(row);
+                var dataPoint = new DataPoint(structure, row);
+                for (Accumulator accumulator : groups.accumulators) {
+                    accumulator.add(group, dataPoint);
+                }
+                count++;
+                if ((group == size || count % CHECK_INTERVAL == 0) && groups.estimateSize() > memoryBudget) {
+                    if (partitions == null) {
+                        partitions = new Partitions(0);
+                    }
+                    partitions.write(groups);
+                    groups = new Groups(keys);
+                }
+            }
+            if (keys.length == 0 && groups.size() == 0) {
+                groups.groupOf(List.of());
+            }
+
+            if (partitions == null) {
+                return groups.results();
+            }
+            partitions.write(groups);
+            var results = partitions.results(memoryBudget);
+            // The files now belong to the returned stream.
+            partitions = null;
+            return results;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } finally {
+            if (partitions != null) {
+                partitions.close();
+            }
+        }
+    }
+
+    /**
+     * Groups of an aggregation and their accumulators.
+     */
+    private final class Groups {
+
+        private final GroupTable table;
+        private final Accumulator[] accumulators;
+        private int capacity = INITIAL_CAPACITY;
+
+        Groups(int[] keys) {
+            this.table = new GroupTable(keys);
+            this.accumulators = new Accumulator[functions.size()];
+            for (int i = 0; i < accumulators.length; i++) {
+                accumulators[i] = functions.get(i).newAccumulator(capacity);
+            }
+        }
+
+        int groupOf(List<Object> row) {
+            var group = table.groupOf(row);
+            if (group == capacity) {
+                capacity *= 2;
+                for (Accumulator accumulator : accumulators) {
+                    accumulator.grow(capacity);
+                }
+            }
+            return group;
+        }
+
+        int size() {
+            return table.size();
+        }
+
+        long estimateSize() {
+            var size = table.estimateSize();
+            for (Accumulator accumulator : accumulators) {
+                size += accumulator.estimateSize(capacity);
+            }
+            return size;
+        }
+
+        Stream<List<Object>> results() {
+            return IntStream.range(0, table.size()).mapToObj(this::result);
+        }
+
+        private List<Object> result(int group) {
+            var row = Arrays.copyOf(table.keyOf(group), keys.length + accumulators.length);
+            for (int i = 0; i < accumulators.length; i++) {
+                row[keys.length + i] = accumulators[i].result(group);
+            }
+            return Arrays.asList(row);
+        }
+    }
+
+    /**
+     * Temporary files holding the partial states of the groups, partitioned on the hash of their key.
+     */
+    private final class Partitions {
+
+        private final int level;
+        private final SpillFile[] files = new SpillFile[PARTITIONS];
+
+        Partitions(int level) {
+            this.level = level;
+        }
+
+        void write(Groups groups) throws IOException {
+            var shift = Integer.SIZE - PARTITION_BITS * (level + 1);
+            for (int group = 0; group < groups.size(); group++) {
+                // The hashes of small numbers have no high bits, they are mixed so that all bits spread the groups.
+                var partition = ((groups.table.hashOf(group) * MIX) >>> shift) & (PARTITIONS - 1);
+                if (files[partition] == null) {
+                    files[partition] = new SpillFile(spillDirectory);
+                }
+                var out = files[partition].nextRecord();
+                for (Object value : groups.table.keyOf(group)) {
+                    SpillFile.writeValue(out, value);
+                }
+                for (Accumulator accumulator : groups.accumulators) {
+                    accumulator.write(group, out);
+                }
+            }
+        }
+
+        /**
+         * Returns the groups of the partitions, merging the partitions one after the other as they are read.
+         */
+        Stream<List<Object>> results(long memoryBudget) {
+            return IntStream.range(0, PARTITIONS)
+                    .filter(partition -> files[partition] != null)
+                    .boxed()
+                    .flatMap(partition -> {
+                        var file = files[partition];
+                        files[partition] = null;
+                        return merge(file, memoryBudget);
+                    })
+                    .onClose(this::close);
+        }
+
+        private Stream<List<Object>> merge(SpillFile file, long memoryBudget) {
+            var groups = new Groups(partialKeys);
+            Partitions partitions = null;
+            var key = new Object[keys.length];
+            var keyList = Arrays.asList(key);
+            try (file) {
+                var in = file.read();
+                for (long record = 0; record < file.getRecords(); record++) {
+                    for (int i = 0; i < key.length; i++) {
+                        key[i] = SpillFile.readValue(in);
+                    }
+                    var size = groups.size();
+                    var group = groups.groupOf(keyList);
+                    for (Accumulator accumulator : groups.accumulators) {
+                        accumulator.read(group, in);
+                    }
+                    if (group == size && level < MAX_LEVEL && groups.estimateSize() > memoryBudget) {
+                        if (partitions == null) {
+                            partitions = new Partitions(level + 1);
+                        }
+                        partitions.write(groups);
+                        groups = new Groups(partialKeys);
+                    }
+                }
+                if (partitions == null) {
+                    return groups.results();
+                }
+                partitions.write(groups);
+                var results = partitions.results(memoryBudget);
+                partitions = null;
+                return results;
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            } finally {
+                if (partitions != null) {
+                    partitions.close();
+                }
+            }
+        }
+
+        void close() {
+            for (SpillFile file : files) {
+                if (file != null) {
+                    try {
+                        file.close();
+                    } catch (IOException ioe) {
+                        // The file is left in the temporary directory.
+                    }
+                }
+            }
+        }
+    }
+}
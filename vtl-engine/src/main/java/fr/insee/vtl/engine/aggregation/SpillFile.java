@@ -0,0 +1,385 @@
+package fr.insee.vtl.engine.aggregation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Temporary file holding the partial states of the groups of a partition, written by an aggregation that exceeds its
+ * memory budget.
+ * <p>
+ * Each record is made of the key values of a group followed by the state of each accumulator. The file is deleted
+ * when closed.
+ */
+final class SpillFile implements Closeable {
+
+    /**
+     * Estimated size in bytes of a value, such as a key value, kept in memory.
+     */
+    static final int VALUE_SIZE = 32;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte STRING = 4;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Output output;
+    private long records;
+
+    /**
+     * Creates a new temporary file.
+     *
+     * @param directory The directory of the file, or <code>null</code> for the default temporary directory.
+     * @throws IOException If the file cannot be created.
+     */
+    SpillFile(Path directory) throws IOException {
+        this.path = directory == null
+                ? Files.createTempFile("vtl-aggregation-", ".tmp")
+                : Files.createTempFile(directory, "vtl-aggregation-", ".tmp");
+        this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.output = new Output(channel);
+    }
+
+    /**
+     * Returns the output to write a record to, and counts the record.
+     *
+     * @return The output of the file.
+     */
+    DataOutput nextRecord() {
+        records++;
+        return output;
+    }
+
+    /**
+     * Returns the number of records written.
+     *
+     * @return The number of records.
+     */
+    long getRecords() {
+        return records;
+    }
+
+    /**
+     * Ends the writing and returns the input to read the records from the start of the file.
+     *
+     * @return The input of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    DataInput read() throws IOException {
+        output.flush();
+        channel.position(0);
+        return new Input(channel);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Writes a value of a data point.
+     *
+     * @param out   The output to write to.
+     * @param value The value, of one of the types of the VTL engine.
+     * @throws IOException              If the value cannot be written.
+     * @throws IllegalArgumentException If the type of the value is not supported.
+     */
+    static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else {
+            throw new IllegalArgumentException("cannot spill value of type " + value.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Reads a value written by {@link #writeValue(DataOutput, Object)}.
+     *
+     * @param in The input to read from.
+     * @return The value.
+     * @throws IOException If the value cannot be read.
+     */
+    static Object readValue(DataInput in) throws IOException {
+        var type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case BOOLEAN:
+                return in.readBoolean();
+            case STRING:
+                return readString(in);
+            default:
+                throw new IOException("invalid value type " + type);
+        }
+    }
+
+    // writeUTF is limited to 64KB, strings are written as UTF-16 chars instead.
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeInt(value.length());
+        out.writeChars(value);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        var chars = new char[in.readInt()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = in.readChar();
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Buffered output to a file channel.
+     * <p>
+     * Unlike a <code>DataOutputStream</code> over a <code>BufferedOutputStream</code>, the values are put in the
+     * buffer without any intermediate copy or synchronization.
+     */
+    private static final class Output implements DataOutput {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensure(Byte.BYTES).put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                var chunk = Math.min(len, ensure(1).remaining());
+                buffer.put(b, off, chunk);
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        @Override
+        public void writeBoolean(boolean v) throws IOException {
+            write(v ? 1 : 0);
+        }
+
+        @Override
+        public void writeByte(int v) throws IOException {
+            write(v);
+        }
+
+        @Override
+        public void writeShort(int v) throws IOException {
+            ensure(Short.BYTES).putShort((short) v);
+        }
+
+        @Override
+        public void writeChar(int v) throws IOException {
+            ensure(Character.BYTES).putChar((char) v);
+        }
+
+        @Override
+        public void writeInt(int v) throws IOException {
+            ensure(Integer.BYTES).putInt(v);
+        }
+
+        @Override
+        public void writeLong(long v) throws IOException {
+            ensure(Long.BYTES).putLong(v);
+        }
+
+        @Override
+        public void writeFloat(float v) throws IOException {
+            ensure(Float.BYTES).putFloat(v);
+        }
+
+        @Override
+        public void writeDouble(double v) throws IOException {
+            ensure(Double.BYTES).putDouble(v);
+        }
+
+        @Override
+        public void writeBytes(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                write(s.charAt(i));
+            }
+        }
+
+        @Override
+        public void writeChars(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                writeChar(s.charAt(i));
+            }
+        }
+
+        @Override
+        public void writeUTF(String s) throws IOException {
+            var bytes = new ByteArrayOutputStream();
+            new DataOutputStream(bytes).writeUTF(s);
+            write(bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Buffered input from a file channel, the counterpart of {@link Output}.
+     */
+    private static final class Input implements DataInput {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                buffer.compact();
+                while (buffer.position() < bytes) {
+                    if (channel.read(buffer) < 0) {
+                        throw new EOFException();
+                    }
+                }
+                buffer.flip();
+            }
+            return buffer;
+        }
+
+        @Override
+        public void readFully(byte[] b) throws IOException {
+            readFully(b, 0, b.length);
+        }
+
+        @Override
+        public void readFully(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                var chunk = Math.min(len, ensure(1).remaining());
+                buffer.get(b, off, chunk);
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        @Override
+        public int skipBytes(int n) throws IOException {
+            for (int i = 0; i < n; i++) {
+                readByte();
+            }
+            return n;
+        }
+
+        @Override
+        public boolean readBoolean() throws IOException {
+            return readByte() != 0;
+        }
+
+        @Override
+        public byte readByte() throws IOException {
+            return ensure(Byte.BYTES).get();
+        }
+
+        @Override
+        public int readUnsignedByte() throws IOException {
+            return readByte() & 0xFF;
+        }
+
+        @Override
+        public short readShort() throws IOException {
+            return ensure(Short.BYTES).getShort();
+        }
+
+        @Override
+        public int readUnsignedShort() throws IOException {
+            return readShort() & 0xFFFF;
+        }
+
+        @Override
+        public char readChar() throws IOException {
+            return ensure(Character.BYTES).getChar();
+        }
+
+        @Override
+        public int readInt() throws IOException {
+            return ensure(Integer.BYTES).getInt();
+        }
+
+        @Override
+        public long readLong() throws IOException {
+            return ensure(Long.BYTES).getLong();
+        }
+
+        @Override
+        public float readFloat() throws IOException {
+            return ensure(Float.BYTES).getFloat();
+        }
+
+        @Override
+        public double readDouble() throws IOException {
+            return ensure(Double.BYTES).getDouble();
+        }
+
+        @Override
+        public String readLine() {
+            throw new UnsupportedOperationException("spill files have no lines");
+        }
+
+        @Override
+        public String readUTF() throws IOException {
+            return DataInputStream.readUTF(this);
+        }
+    }
+}
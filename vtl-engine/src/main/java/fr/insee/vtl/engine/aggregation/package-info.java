@@ -0,0 +1,4 @@
+/**
+ * This package contains the hash aggregation used by the aggregate operators and clause.
+ */
+package fr.insee.vtl.engine.aggregation;
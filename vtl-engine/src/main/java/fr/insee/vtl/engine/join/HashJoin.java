@@ -0,0 +1,157 @@
+package fr.insee.vtl.engine.join;
+
+import fr.insee.vtl.model.Dataset;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Execution of a join as a hash join.
+ * <p>
+ * The data points of the build side are indexed in a {@link JoinTable} on their key, once, and the data points of the
+ * probe side are streamed and looked up in the table. The build side is the smaller dataset when both sizes are
+ * known, the right one otherwise. The data points of the build side that must be kept without match are emitted
+ * after the probe side is exhausted.
+ * <p>
+ * The data points of the probe side are streamed in their order, and the matching data points of the build side in
+ * their order as well.
+ */
+final class HashJoin {
+
+    private final Join join;
+    private final Dataset build;
+    private final Dataset probe;
+    private final boolean buildLeft;
+    private final int[] buildKeys;
+    private final int[] probeKeys;
+    private final boolean preserveBuild;
+    private final boolean preserveProbe;
+    private volatile JoinTable table;
+
+    HashJoin(Join join, Dataset left, Dataset right) {
+        this.join = join;
+        var leftSize = left.getSizeIfKnown();
+        var rightSize = right.getSizeIfKnown();
+        this.buildLeft = leftSize >= 0 && (rightSize < 0 || leftSize < rightSize);
+        this.build = buildLeft ? left : right;
+        this.probe = buildLeft ? right : left;
+        this.buildKeys = buildLeft ? join.getLeftKeys() : join.getRightKeys();
+        this.probeKeys = buildLeft ? join.getRightKeys() : join.getLeftKeys();
+        var type = join.getType();
+        this.preserveBuild = type == Join.Type.FULL || type == Join.Type.LEFT && buildLeft;
+        this.preserveProbe = type == Join.Type.FULL || type == Join.Type.LEFT && !buildLeft;
+    }
+
+    /**
+     * Returns the order of the joined data points.
+     *
+     * @return The sort order of the left dataset if its data points are streamed and no data point is added after
+     * them, an empty list otherwise.
+     */
+    List<String> getSortOrder() {
+        return buildLeft || preserveBuild ? List.of() : probe.getSortOrder();
+    }
+
+    private JoinTable table() {
+        var table = this.table;
+        if (table == null) {
+            synchronized (this) {
+                table = this.table;
+                if (table == null) {
+                    table = new JoinTable(build.getDataPoints(), buildKeys);
+                    this.table = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns a new stream of the joined data points.
+     *
+     * @return The joined data points, in the order of the probe side.
+     */
+    Stream<List<Object>> stream() {
+        var probeStream = probe.stream();
+        var iterator = new JoinIterator(table(), probeStream.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(probeStream::close);
+    }
+
+    private List<Object> row(List<Object> buildRow, List<Object> probeRow) {
+        return buildLeft ? join.row(buildRow, probeRow) : join.row(probeRow, buildRow);
+    }
+
+    private final class JoinIterator implements Iterator<List<Object>> {
+
+        private final JoinTable table;
+        private final Iterator<List<Object>> probeRows;
+        private final boolean[] matched;
+        private List<Object> probeRow;
+        private int match = -1;
+        private int unmatched = -1;
+        private List<Object> next;
+
+        JoinIterator(JoinTable table, Iterator<List<Object>> probeRows) {
+            this.table = table;
+            this.probeRows = probeRows;
+            this.matched = preserveBuild ? new boolean[table.size()] : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public List<Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var row = next;
+            next = null;
+            return row;
+        }
+
+        private List<Object> advance() {
+            if (match >= 0) {
+                return emitMatch();
+            }
+            while (unmatched < 0 && probeRows.hasNext()) {
+                probeRow = probeRows.next();
+                match = table.first(probeRow, probeKeys);
+                if (match >= 0) {
+                    return emitMatch();
+                }
+                if (preserveProbe) {
+                    return row(null, probeRow);
+                }
+            }
+            if (matched != null) {
+                while (++unmatched < matched.length) {
+                    if (!matched[unmatched]) {
+                        return row(table.get(unmatched), null);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private List<Object> emitMatch() {
+            var buildRow = table.get(match);
+            if (matched != null) {
+                matched[match] = true;
+            }
+            match = table.next(match);
+            return row(buildRow, probeRow);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package fr.insee.vtl.engine.join;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.LazyDataset;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <code>Join</code> represents the join of two datasets on key components.
+ * <p>
+ * The result has the components of the left dataset followed by the components of the right dataset that are not
+ * keys. Its data points are views over the joined data points of both sides; they are not copied. For full joins,
+ * the key values come from the side that is present.
+ */
+public class Join {
+
+    /**
+     * The kinds of join.
+     */
+    public enum Type {
+        /**
+         * Only the data points with a match on both sides.
+         */
+        INNER,
+        /**
+         * All the data points of the left side, with the matching data points of the right side if any.
+         */
+        LEFT,
+        /**
+         * All the data points of both sides, matched when possible.
+         */
+        FULL,
+        /**
+         * All the combinations of the data points of both sides. There are no keys.
+         */
+        CROSS
+    }
+
+    private final Type type;
+    private final List<Dataset.Component> structure;
+    private final List<String> keys;
+    private final int[] leftKeys;
+    private final int[] rightKeys;
+    private final int[] leftSources;
+    private final int[] rightSources;
+
+    /**
+     * Constructor taking the kind of join, the structures of both sides and the keys.
+     *
+     * @param type           The kind of join.
+     * @param leftStructure  The structure of the left dataset.
+     * @param rightStructure The structure of the right dataset.
+     * @param keys           The names of the components the data points are matched on, which must be empty for
+     *                       cross joins.
+     * @throws IllegalArgumentException If a key is missing or has different types on both sides, or if both sides
+     *                                  have other components with the same name.
+     */
+    public Join(Type type, List<Dataset.Component> leftStructure, List<Dataset.Component> rightStructure,
+                List<String> keys) {
+        this.type = Objects.requireNonNull(type);
+        if (type == Type.CROSS && !keys.isEmpty()) {
+            throw new IllegalArgumentException("cross joins have no keys");
+        }
+        this.keys = List.copyOf(keys);
+        var leftIndices = indices(leftStructure);
+        var rightIndices = indices(rightStructure);
+
+        leftKeys = new int[keys.size()];
+        rightKeys = new int[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            var key = keys.get(i);
+            if (!leftIndices.containsKey(key) || !rightIndices.containsKey(key)) {
+                throw new IllegalArgumentException("key " + key + " is not present in both datasets");
+            }
+            leftKeys[i] = leftIndices.get(key);
+            rightKeys[i] = rightIndices.get(key);
+            var leftType = leftStructure.get(leftKeys[i]).getType();
+            var rightType = rightStructure.get(rightKeys[i]).getType();
+            if (!leftType.equals(rightType)) {
+                throw new IllegalArgumentException(String.format("key %s has type %s on the left and %s on the right",
+                        key, leftType.getSimpleName(), rightType.getSimpleName()));
+            }
+        }
+
+        var structure = new ArrayList<>(leftStructure);
+        var leftSources = new int[leftStructure.size() + rightStructure.size()];
+        var rightSources = new int[leftSources.length];
+        Arrays.fill(rightSources, -1);
+        for (int i = 0; i < leftStructure.size(); i++) {
+            leftSources[i] = i;
+            var key = keys.indexOf(leftStructure.get(i).getName());
+            if (key >= 0) {
+                rightSources[i] = rightKeys[key];
+            }
+        }
+        for (int i = 0; i < rightStructure.size(); i++) {
+            var component = rightStructure.get(i);
+            if (keys.contains(component.getName())) {
+                continue;
+            }
+            if (leftIndices.containsKey(component.getName())) {
+                throw new IllegalArgumentException("component " + component.getName()
+                        + " is present in both datasets, it must be a key or be renamed");
+            }
+            leftSources[structure.size()] = -1;
+            rightSources[structure.size()] = i;
+            structure.add(component);
+        }
+        this.structure = List.copyOf(structure);
+        this.leftSources = Arrays.copyOf(leftSources, structure.size());
+        this.rightSources = Arrays.copyOf(rightSources, structure.size());
+    }
+
+    private static HashMap<String, Integer> indices(List<Dataset.Component> structure) {
+        var indices = new HashMap<String, Integer>();
+        for (int i = 0; i < structure.size(); i++) {
+            indices.put(structure.get(i).getName(), i);
+        }
+        return indices;
+    }
+
+    /**
+     * Returns the kind of join.
+     *
+     * @return The kind of join.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the structure of the joined data points.
+     *
+     * @return The components of the left dataset followed by the components of the right dataset that are not keys.
+     */
+    public List<Dataset.Component> getDataStructure() {
+        return structure;
+    }
+
+    /**
+     * Returns the positions of the keys in the data points of the left dataset.
+     *
+     * @return The positions of the keys, in the order of the keys.
+     */
+    int[] getLeftKeys() {
+        return leftKeys;
+    }
+
+    /**
+     * Returns the positions of the keys in the data points of the right dataset.
+     *
+     * @return The positions of the keys, in the order of the keys.
+     */
+    int[] getRightKeys() {
+        return rightKeys;
+    }
+
+    /**
+     * Joins two datasets.
+     * <p>
+     * The join is executed when the data points of the result are read. When both datasets are sorted on the keys,
+     * it is executed as a sort-merge join streaming both sides. Otherwise, it is executed as a hash join building a
+     * table on one side and streaming the other one. The table is built on the smaller side when the sizes of the
+     * datasets are known, on the right side otherwise.
+     *
+     * @param left  The left dataset.
+     * @param right The right dataset.
+     * @return A dataset whose data points are joined when read.
+     * @see Dataset#getSortOrder()
+     */
+    public Dataset apply(Dataset left, Dataset right) {
+        var sortOrder = mergeOrder(left.getSortOrder(), right.getSortOrder());
+        if (sortOrder != null) {
+            var mergeLeftKeys = new int[keys.size()];
+            var mergeRightKeys = new int[keys.size()];
+            for (int i = 0; i < sortOrder.size(); i++) {
+                var key = keys.indexOf(sortOrder.get(i));
+                mergeLeftKeys[i] = leftKeys[key];
+                mergeRightKeys[i] = rightKeys[key];
+            }
+            var mergeJoin = new MergeJoin(this, left, right, mergeLeftKeys, mergeRightKeys);
+            return new LazyDataset(mergeJoin::stream, structure, sortOrder);
+        }
+        var hashJoin = new HashJoin(this, left, right);
+        return new LazyDataset(hashJoin::stream, structure, hashJoin.getSortOrder());
+    }
+
+    /**
+     * Joins two datasets, in parallel when possible.
+     * <p>
+     * The data points of both sides are distributed in partitions on the hash of their key and each pair of
+     * partitions is joined on its own task of {@link ForkJoinPool#commonPool()}. Unlike the other joins, this one is
+     * eager: the joined data points are computed when this method is called, which waits for the tasks, and each
+     * partition of the result is an {@link fr.insee.vtl.model.InMemoryDataset} holding them in memory. Cross joins,
+     * which have no key, and joins of datasets sorted on the keys, which are merged, are executed as with
+     * {@link #apply(Dataset, Dataset)}.
+     *
+     * @param left       The left dataset.
+     * @param right      The right dataset.
+     * @param partitions The number of partitions of each side. The join is not executed in parallel if it is
+     *                   <code>1</code> or less.
+     * @return A dataset made of the joined data points of each pair of partitions.
+     */
+    public Dataset apply(Dataset left, Dataset right, int partitions) {
+        if (partitions <= 1 || keys.isEmpty() || mergeOrder(left.getSortOrder(), right.getSortOrder()) != null) {
+            return apply(left, right);
+        }
+        return new PartitionedJoin(this, partitions, ForkJoinPool.commonPool()).apply(left, right);
+    }
+
+    /**
+     * Returns the order of the keys both datasets are sorted on, if any.
+     *
+     * @param leftOrder  The sort order of the left dataset.
+     * @param rightOrder The sort order of the right dataset.
+     * @return The keys in the order both datasets are sorted on, or <code>null</code> if the datasets are not both
+     * sorted on the keys first.
+     */
+    private List<String> mergeOrder(List<String> leftOrder, List<String> rightOrder) {
+        if (keys.isEmpty() || leftOrder.size() < keys.size() || rightOrder.size() < keys.size()) {
+            return null;
+        }
+        var order = leftOrder.subList(0, keys.size());
+        if (!order.equals(rightOrder.subList(0, keys.size())) || !order.containsAll(keys)) {
+            return null;
+        }
+        return order;
+    }
+
+    /**
+     * Creates a joined data point.
+     *
+     * @param left  The data point of the left side, or <code>null</code>.
+     * @param right The data point of the right side, or <code>null</code>.
+     * @return A view over both data points following the structure of the join.
+     */
+    List<Object> row(List<Object> left, List<Object> right) {
+        return new JoinRow(left, right);
+    }
+
+    /**
+     * Data point resulting from a join, reading the values from the data points of both sides.
+     */
+    private class JoinRow extends AbstractList<Object> implements RandomAccess {
+
+        private final List<Object> left;
+        private final List<Object> right;
+
+        JoinRow(List<Object> left, List<Object> right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (left != null && leftSources[index] >= 0) {
+                return left.get(leftSources[index]);
+            }
+            if (right != null && rightSources[index] >= 0) {
+                return right.get(rightSources[index]);
+            }
+            Objects.checkIndex(index, leftSources.length);
+            return null;
+        }
+
+        @Override
+        public int size() {
+            return leftSources.length;
+        }
+    }
+}
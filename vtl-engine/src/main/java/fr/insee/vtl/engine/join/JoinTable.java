@@ -0,0 +1,121 @@
+package fr.insee.vtl.engine.join;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Open addressing hash table indexing the data points of the build side of a hash join on their key.
+ * <p>
+ * Keys are never materialized: the key values are hashed and compared in place, in the data points of both sides.
+ * The data points sharing a key are chained in their original order.
+ */
+final class JoinTable {
+
+    private final List<List<Object>> rows;
+    private final int[] keys;
+    private final int[] slots;
+    private final int[] hashes;
+    private final int[] next;
+
+    /**
+     * Constructor indexing data points.
+     *
+     * @param rows The data points to index, with random access.
+     * @param keys The positions of the key values in the data points.
+     */
+    JoinTable(List<List<Object>> rows, int[] keys) {
+        this.rows = rows;
+        this.keys = keys;
+        this.slots = new int[Math.max(16, Integer.highestOneBit(Math.max(1, rows.size())) << 2)];
+        this.hashes = new int[rows.size()];
+        this.next = new int[rows.size()];
+        var mask = slots.length - 1;
+        // Inserted from the last one so that each chain is in the order of the data points.
+        for (int row = rows.size() - 1; row >= 0; row--) {
+            var values = rows.get(row);
+            var hash = hash(values, keys);
+            hashes[row] = hash;
+            var slot = hash & mask;
+            while (slots[slot] != 0 && !matches(slots[slot] - 1, hash, values, keys)) {
+                slot = (slot + 1) & mask;
+            }
+            next[row] = slots[slot] - 1;
+            slots[slot] = row + 1;
+        }
+    }
+
+    /**
+     * Hashes the key values of a data point.
+     *
+     * @param row  The data point.
+     * @param keys The positions of the key values.
+     * @return The hash of the key values.
+     */
+    static int hash(List<Object> row, int[] keys) {
+        int hash = 1;
+        for (int key : keys) {
+            hash = 31 * hash + Objects.hashCode(row.get(key));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean matches(int row, int hash, List<Object> other, int[] otherKeys) {
+        if (hashes[row] != hash) {
+            return false;
+        }
+        var values = rows.get(row);
+        for (int i = 0; i < keys.length; i++) {
+            if (!Objects.equals(values.get(keys[i]), other.get(otherKeys[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the first indexed data point with the key of a data point of the other side.
+     *
+     * @param row       The data point of the other side.
+     * @param otherKeys The positions of the key values in the data point, in the order of the keys of the table.
+     * @return The index of the first matching data point, or <code>-1</code> if there is none.
+     */
+    int first(List<Object> row, int[] otherKeys) {
+        var hash = hash(row, otherKeys);
+        var mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (matches(slots[slot] - 1, hash, row, otherKeys)) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the next indexed data point with the same key.
+     *
+     * @param row The index of a data point.
+     * @return The index of the next data point with the same key, or <code>-1</code> if there is none.
+     */
+    int next(int row) {
+        return next[row];
+    }
+
+    /**
+     * Returns an indexed data point.
+     *
+     * @param row The index of the data point.
+     * @return The data point.
+     */
+    List<Object> get(int row) {
+        return rows.get(row);
+    }
+
+    /**
+     * Returns the number of indexed data points.
+     *
+     * @return The number of data points.
+     */
+    int size() {
+        return rows.size();
+    }
+}
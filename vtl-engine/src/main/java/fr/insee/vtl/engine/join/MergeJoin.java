@@ -0,0 +1,194 @@
+package fr.insee.vtl.engine.join;
+
+import fr.insee.vtl.model.Dataset;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Execution of a join as a sort-merge join, for datasets sorted on the keys.
+ * <p>
+ * Both sides are streamed at the same time and matched on the fly. Only the data points of the right side sharing
+ * the current key are kept in memory, so the memory used does not depend on the size of the datasets. The joined data
+ * points are sorted on the keys.
+ */
+final class MergeJoin {
+
+    private final Join join;
+    private final Dataset left;
+    private final Dataset right;
+    private final int[] leftKeys;
+    private final int[] rightKeys;
+    private final boolean preserveLeft;
+    private final boolean preserveRight;
+
+    /**
+     * Constructor taking the join, the datasets and the positions of the keys in the order the datasets are sorted on.
+     *
+     * @param join      The join.
+     * @param left      The left dataset.
+     * @param right     The right dataset.
+     * @param leftKeys  The positions of the keys in the data points of the left dataset, in the sort order.
+     * @param rightKeys The positions of the keys in the data points of the right dataset, in the sort order.
+     */
+    MergeJoin(Join join, Dataset left, Dataset right, int[] leftKeys, int[] rightKeys) {
+        this.join = join;
+        this.left = left;
+        this.right = right;
+        this.leftKeys = leftKeys;
+        this.rightKeys = rightKeys;
+        this.preserveLeft = join.getType() == Join.Type.LEFT || join.getType() == Join.Type.FULL;
+        this.preserveRight = join.getType() == Join.Type.FULL;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(List<Object> row, int[] keys, List<Object> other, int[] otherKeys) {
+        for (int i = 0; i < keys.length; i++) {
+            var value = (Comparable) row.get(keys[i]);
+            var otherValue = other.get(otherKeys[i]);
+            int comparison;
+            if (value == null || otherValue == null) {
+                comparison = value == null ? (otherValue == null ? 0 : -1) : 1;
+            } else {
+                comparison = value.compareTo(otherValue);
+            }
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a new stream of the joined data points.
+     *
+     * @return The joined data points, sorted on the keys.
+     */
+    Stream<List<Object>> stream() {
+        var leftStream = left.stream();
+        var rightStream = right.stream();
+        var iterator = new MergeIterator(leftStream.iterator(), rightStream.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        leftStream.close();
+                    } finally {
+                        rightStream.close();
+                    }
+                });
+    }
+
+    private final class MergeIterator implements Iterator<List<Object>> {
+
+        private final Iterator<List<Object>> leftRows;
+        private final Iterator<List<Object>> rightRows;
+        private final ArrayDeque<List<Object>> pending = new ArrayDeque<>();
+        // Data points of the right side sharing the key of the last group read, and the next one.
+        private final List<List<Object>> group = new ArrayList<>();
+        private boolean groupMatched;
+        private List<Object> rightHead;
+        private List<Object> previousLeft;
+
+        MergeIterator(Iterator<List<Object>> leftRows, Iterator<List<Object>> rightRows) {
+            this.leftRows = leftRows;
+            this.rightRows = rightRows;
+            this.rightHead = rightRows.hasNext() ? rightRows.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending.isEmpty()) {
+                if (leftRows.hasNext()) {
+                    merge(leftRows.next());
+                } else if (!finish()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public List<Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pending.poll();
+        }
+
+        private void merge(List<Object> leftRow) {
+            if (previousLeft != null && compare(previousLeft, leftKeys, leftRow, leftKeys) > 0) {
+                throw new IllegalStateException("the data points of the left dataset are not sorted");
+            }
+            previousLeft = leftRow;
+            if (group.isEmpty() || compare(leftRow, leftKeys, group.get(0), rightKeys) != 0) {
+                // The current group has no more match, move the right side to the key of the data point.
+                closeGroup();
+                while (rightHead != null && compare(leftRow, leftKeys, rightHead, rightKeys) > 0) {
+                    readGroup();
+                    closeGroup();
+                }
+                if (rightHead != null && compare(leftRow, leftKeys, rightHead, rightKeys) == 0) {
+                    readGroup();
+                }
+            }
+            if (group.isEmpty()) {
+                if (preserveLeft) {
+                    pending.add(join.row(leftRow, null));
+                }
+                return;
+            }
+            groupMatched = true;
+            for (List<Object> rightRow : group) {
+                pending.add(join.row(leftRow, rightRow));
+            }
+        }
+
+        private boolean finish() {
+            if (group.isEmpty() && rightHead == null) {
+                return false;
+            }
+            closeGroup();
+            if (rightHead != null) {
+                if (!preserveRight) {
+                    rightHead = null;
+                    return false;
+                }
+                readGroup();
+            }
+            return true;
+        }
+
+        private void readGroup() {
+            group.add(rightHead);
+            groupMatched = false;
+            rightHead = rightRows.hasNext() ? rightRows.next() : null;
+            while (rightHead != null) {
+                var comparison = compare(group.get(0), rightKeys, rightHead, rightKeys);
+                if (comparison > 0) {
+                    throw new IllegalStateException("the data points of the right dataset are not sorted");
+                }
+                if (comparison != 0) {
+                    break;
+                }
+                group.add(rightHead);
+                rightHead = rightRows.hasNext() ? rightRows.next() : null;
+            }
+        }
+
+        private void closeGroup() {
+            if (preserveRight && !groupMatched) {
+                for (List<Object> rightRow : group) {
+                    pending.add(join.row(null, rightRow));
+                }
+            }
+            group.clear();
+        }
+    }
+}
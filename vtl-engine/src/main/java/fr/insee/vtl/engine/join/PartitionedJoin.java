@@ -0,0 +1,137 @@
+package fr.insee.vtl.engine.join;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.PartitionedDataset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+
+/**
+ * Execution of a join in parallel, as hash joins of partitions.
+ * <p>
+ * The data points of both sides are distributed in partitions on the hash of their key, so that matching data points
+ * end up in partitions with the same index. Each pair of partitions is then joined by a {@link HashJoin} on its own
+ * fork-join task. The result is a {@link PartitionedDataset} holding the joined data points of each pair.
+ * <p>
+ * The data points of a side whose size is known are distributed in parallel as well, by ranges of positions. The
+ * data points of the other sides are distributed as they are streamed.
+ */
+final class PartitionedJoin {
+
+    private static final int MIX = 0x9E3779B9;
+
+    private final Join join;
+    private final int partitions;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor taking the join, the number of partitions and the pool executing the tasks.
+     *
+     * @param join       The join.
+     * @param partitions The number of partitions of each side.
+     * @param pool       The pool executing the tasks.
+     */
+    PartitionedJoin(Join join, int partitions, ForkJoinPool pool) {
+        this.join = join;
+        this.partitions = partitions;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the partition of a data point.
+     * <p>
+     * The partition is taken from the high bits of the hash, the tables of the partitions using the low bits. The
+     * hashes of small numbers and short strings have no high bits, they are mixed so that all bits spread the data
+     * points.
+     */
+    private static int partition(int hash, int partitions) {
+        return (int) ((((hash * MIX) & 0xFFFFFFFFL) * partitions) >>> Integer.SIZE);
+    }
+
+    /**
+     * Joins two datasets.
+     *
+     * @param left  The left dataset.
+     * @param right The right dataset.
+     * @return A dataset made of the joined data points of each pair of partitions.
+     */
+    Dataset apply(Dataset left, Dataset right) {
+        var leftPartitions = exchange(left, join.getLeftKeys());
+        var rightPartitions = exchange(right, join.getRightKeys());
+
+        var tasks = new ArrayList<ForkJoinTask<List<List<Object>>>>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            var leftPartition = new InMemoryDataset(leftPartitions.get(i), left.getDataStructure());
+            var rightPartition = new InMemoryDataset(rightPartitions.get(i), right.getDataStructure());
+            tasks.add(pool.submit(() -> new HashJoin(join, leftPartition, rightPartition).stream()
+                    .collect(Collectors.toList())));
+        }
+        var result = new ArrayList<Dataset>(partitions);
+        for (ForkJoinTask<List<List<Object>>> task : tasks) {
+            result.add(new InMemoryDataset(task.join(), join.getDataStructure()));
+        }
+        return new PartitionedDataset(result, join.getDataStructure());
+    }
+
+    /**
+     * Distributes the data points of a dataset in partitions on the hash of their key.
+     *
+     * @param dataset The dataset.
+     * @param keys    The positions of the keys in the data points.
+     * @return The data points of each partition, in the order of the dataset.
+     */
+    private List<List<List<Object>>> exchange(Dataset dataset, int[] keys) {
+        if (dataset.getSizeIfKnown() < 0) {
+            var result = newPartitions();
+            try (var stream = dataset.stream()) {
+                stream.forEach(row -> result.get(partition(JoinTable.hash(row, keys), partitions)).add(row));
+            }
+            return result;
+        }
+
+        // The data points are split in ranges distributed on their own task, whose partitions are then concatenated.
+        var rows = dataset.getDataPoints();
+        var ranges = Math.max(1, Math.min(partitions, rows.size() / 1024));
+        var tasks = new ArrayList<ForkJoinTask<List<List<List<Object>>>>>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            var from = (int) ((long) rows.size() * i / ranges);
+            var range = rows.subList(from, (int) ((long) rows.size() * (i + 1) / ranges));
+            tasks.add(pool.submit(() -> {
+                var result = newPartitions();
+                for (List<Object> row : range) {
+                    result.get(partition(JoinTable.hash(row, keys), partitions)).add(row);
+                }
+                return result;
+            }));
+        }
+        var rangePartitions = new ArrayList<List<List<List<Object>>>>(ranges);
+        for (ForkJoinTask<List<List<List<Object>>>> task : tasks) {
+            rangePartitions.add(task.join());
+        }
+        var result = new ArrayList<List<List<Object>>>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            var size = 0;
+            for (List<List<List<Object>>> range : rangePartitions) {
+                size += range.get(partition).size();
+            }
+            var rowsOfPartition = new ArrayList<List<Object>>(size);
+            for (List<List<List<Object>>> range : rangePartitions) {
+                rowsOfPartition.addAll(range.get(partition));
+            }
+            result.add(rowsOfPartition);
+        }
+        return result;
+    }
+
+    private List<List<List<Object>>> newPartitions() {
+        var result = new ArrayList<List<List<Object>>>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            result.add(new ArrayList<>());
+        }
+        return result;
+    }
+}
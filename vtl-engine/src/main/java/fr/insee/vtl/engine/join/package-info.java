@@ -0,0 +1,4 @@
+/**
+ * This package contains the execution of the join operators.
+ */
+package fr.insee.vtl.engine.join;
@@ -5,27 +5,89 @@ import fr.insee.vtl.model.ResolvableExpression;
 import fr.insee.vtl.parser.VtlBaseVisitor;
 import fr.insee.vtl.parser.VtlParser;
 
-import javax.script.Bindings;
 import javax.script.ScriptContext;
+import java.util.Map;
 import java.util.Objects;
 
-public class AssignmentVisitor extends VtlBaseVisitor<Object> {
+/**
+ * <code>AssignmentVisitor</code> is the base visitor for statements.
+ * <p>
+ * Statements are analyzed without being executed: the visitor returns an expression that evaluates the statement in
+ * the context it is resolved with, for instance script bindings, and stores the assigned value in that context.
+ */
+public class AssignmentVisitor extends VtlBaseVisitor<ResolvableExpression> {
 
-    private final ScriptContext context;
+    private final Map<String, Object> environment;
     private final ExpressionVisitor expressionVisitor;
+    // The bindings the statements are evaluated with as they are visited, when built from a scripting context.
+    private final Map<String, Object> bindings;
 
+    /**
+     * Constructor taking the variables in scope.
+     * <p>
+     * The map is used to find out the type of the variables and is updated with the type of the variables assigned
+     * by the visited statements.
+     *
+     * @param environment The variables in scope, mapped to values or to expressions of the same type.
+     */
+    public AssignmentVisitor(Map<String, Object> environment) {
+        this(environment, null);
+    }
+
+    private AssignmentVisitor(Map<String, Object> environment, Map<String, Object> bindings) {
+        this.environment = Objects.requireNonNull(environment);
+        this.bindings = bindings;
+        expressionVisitor = new ExpressionVisitor(environment);
+    }
+
+    /**
+     * Constructor taking a scripting context.
+     * <p>
+     * The statements are evaluated as they are visited, against the engine scope bindings of the context, and the
+     * assigned values are stored in these bindings. The returned expressions resolve to the assigned values.
+     *
+     * @param context The scripting context.
+     * @deprecated Use {@link #AssignmentVisitor(Map)} with the bindings of the context, and resolve the returned
+     * expressions with these bindings.
+     */
+    @Deprecated
     public AssignmentVisitor(ScriptContext context) {
-        this.context = Objects.requireNonNull(context);
-        expressionVisitor = new ExpressionVisitor(context.getBindings(ScriptContext.ENGINE_SCOPE));
+        this(context.getBindings(ScriptContext.ENGINE_SCOPE), context.getBindings(ScriptContext.ENGINE_SCOPE));
     }
 
     @Override
-    public Object visitTemporaryAssignment(VtlParser.TemporaryAssignmentContext ctx) {
+    public ResolvableExpression visitTemporaryAssignment(VtlParser.TemporaryAssignmentContext ctx) {
         ResolvableExpression resolvableExpression = expressionVisitor.visit(ctx.expr());
-        Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
-        Object assignedObject = resolvableExpression.resolve(bindings);
         String variableIdentifier = ctx.varID().getText();
-        bindings.put(variableIdentifier, assignedObject);
-        return assignedObject;
+        if (bindings != null) {
+            Object assignedObject = resolvableExpression.resolve(bindings);
+            bindings.put(variableIdentifier, assignedObject);
+            return new ResolvableExpression() {
+                @Override
+                public Object resolve(Map<String, Object> context) {
+                    return assignedObject;
+                }
+
+                @Override
+                public Class<?> getType() {
+                    return resolvableExpression.getType();
+                }
+            };
+        }
+        // Following statements only need the type of the variable.
+        environment.put(variableIdentifier, resolvableExpression);
+        return new ResolvableExpression() {
+            @Override
+            public Object resolve(Map<String, Object> context) {
+                Object assignedObject = resolvableExpression.resolve(context);
+                context.put(variableIdentifier, assignedObject);
+                return assignedObject;
+            }
+
+            @Override
+            public Class<?> getType() {
+                return resolvableExpression.getType();
+            }
+        };
     }
 }
@@ -0,0 +1,173 @@
+package fr.insee.vtl.engine.visitors;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.DatasetExpression;
+import fr.insee.vtl.model.FilteredDataset;
+import fr.insee.vtl.model.LazyDataset;
+import fr.insee.vtl.model.ProjectedDataset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * <code>ClausePipeline</code> is a dataset expression executing a chain of clauses in a single pass.
+ * <p>
+ * Each clause is a stage transforming one data point at a time. Consecutive clauses applied to the same dataset are
+ * fused into one pipeline, so the data points of the source dataset are read once and the intermediate datasets are
+ * never built.
+ * <p>
+ * Projections (keep, drop and rename) are not executed as stages. They are composed into a mapping of the column
+ * indices applied to the output of the pipeline through a {@link ProjectedDataset}, so that they do not touch the
+ * data points.
+ * <p>
+ * Likewise, the filters applied before any other stage are evaluated on the data points of the source dataset and
+ * produce a {@link FilteredDataset}, which only keeps the positions of the selected data points.
+ */
+class ClausePipeline extends DatasetExpression {
+
+    private final DatasetExpression source;
+    private final Predicate<List<Object>> filter;
+    private final List<Stage> stages;
+    private final List<Dataset.Component> stagesStructure;
+    private final int[] projection;
+    private final List<Dataset.Component> structure;
+
+    private ClausePipeline(DatasetExpression source, Predicate<List<Object>> filter, List<Stage> stages,
+                           List<Dataset.Component> stagesStructure, int[] projection,
+                           List<Dataset.Component> structure) {
+        this.source = Objects.requireNonNull(source);
+        this.filter = filter;
+        this.stages = Objects.requireNonNull(stages);
+        this.stagesStructure = Objects.requireNonNull(stagesStructure);
+        this.projection = projection;
+        this.structure = Objects.requireNonNull(structure);
+    }
+
+    /**
+     * Returns a pipeline reading the given dataset expression, or the expression itself if it already is a pipeline.
+     *
+     * @param expression The dataset expression.
+     * @return A pipeline producing the same data points as the expression.
+     */
+    static ClausePipeline of(DatasetExpression expression) {
+        if (expression instanceof ClausePipeline) {
+            return (ClausePipeline) expression;
+        }
+        var structure = expression.getDataStructure();
+        return new ClausePipeline(expression, null, List.of(), structure, null, structure);
+    }
+
+    /**
+     * Returns a new pipeline applying a stage after the stages of this pipeline.
+     *
+     * @param stage     The stage to add.
+     * @param structure The structure of the data points returned by the stage.
+     * @return A new pipeline.
+     */
+    ClausePipeline then(Stage stage, List<Dataset.Component> structure) {
+        var stages = new ArrayList<>(this.stages);
+        if (projection != null) {
+            // The next stage expects projected data points.
+            var indices = projection;
+            stages.add(row -> {
+                List<Object> projected = new ArrayList<>(indices.length);
+                for (int index : indices) {
+                    projected.add(row.get(index));
+                }
+                return projected;
+            });
+        }
+        stages.add(Objects.requireNonNull(stage));
+        return new ClausePipeline(source, filter, stages, structure, null, structure);
+    }
+
+    /**
+     * Returns a new pipeline only keeping the data points satisfying a condition.
+     *
+     * @param predicate The condition, evaluated on data points following the current structure.
+     * @return A new pipeline.
+     */
+    ClausePipeline filter(Predicate<List<Object>> predicate) {
+        if (!stages.isEmpty() || projection != null) {
+            return then(row -> predicate.test(row) ? row : null, structure);
+        }
+        var filter = this.filter == null ? predicate : this.filter.and(predicate);
+        return new ClausePipeline(source, filter, stages, stagesStructure, projection, structure);
+    }
+
+    /**
+     * Returns a new pipeline keeping only some of the components.
+     *
+     * @param indices   The position in the current structure of each component of the new structure.
+     * @param structure The new structure of the data points.
+     * @return A new pipeline.
+     */
+    ClausePipeline project(int[] indices, List<Dataset.Component> structure) {
+        var composed = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            composed[i] = projection == null ? indices[i] : projection[indices[i]];
+        }
+        return new ClausePipeline(source, filter, stages, stagesStructure, composed, structure);
+    }
+
+    /**
+     * Returns a new pipeline changing only the structure of the data points.
+     *
+     * @param structure The new structure of the data points.
+     * @return A new pipeline.
+     */
+    ClausePipeline withStructure(List<Dataset.Component> structure) {
+        return new ClausePipeline(source, filter, stages, stagesStructure, projection, structure);
+    }
+
+    @Override
+    public Dataset resolve(Map<String, Object> context) {
+        Dataset dataset = source.resolve(context);
+        if (filter != null) {
+            dataset = new FilteredDataset(dataset, filter);
+        }
+        if (!stages.isEmpty()) {
+            var fused = stages.toArray(new Stage[0]);
+            var input = dataset;
+            dataset = new LazyDataset(() -> input.stream().map(row -> {
+                for (Stage stage : fused) {
+                    row = stage.apply(row);
+                    if (row == null) {
+                        return null;
+                    }
+                }
+                return row;
+            }).filter(Objects::nonNull), stagesStructure);
+        }
+        if (projection != null) {
+            return new ProjectedDataset(dataset, projection, structure);
+        }
+        if (dataset.getDataStructure().equals(structure)) {
+            return dataset;
+        }
+        return new ProjectedDataset(dataset, structure);
+    }
+
+    @Override
+    public List<Dataset.Component> getDataStructure() {
+        return structure;
+    }
+
+    /**
+     * Transformation of one data point.
+     */
+    @FunctionalInterface
+    interface Stage {
+
+        /**
+         * Applies the stage to a data point.
+         *
+         * @param row The data point, as a list of values following the structure of the previous stage.
+         * @return The transformed data point or <code>null</code> if the data point is dropped.
+         */
+        List<Object> apply(List<Object> row);
+    }
+}
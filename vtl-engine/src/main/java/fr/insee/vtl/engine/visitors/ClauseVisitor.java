@@ -1,9 +1,17 @@
 package fr.insee.vtl.engine.visitors;
 
+import fr.insee.vtl.engine.aggregation.AggregateFunction;
+import fr.insee.vtl.engine.aggregation.HashAggregation;
+import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.engine.exceptions.VtlScriptException;
 import fr.insee.vtl.engine.visitors.expression.ExpressionVisitor;
+import fr.insee.vtl.engine.visitors.expression.functions.AggregateFunctionsVisitor;
+import fr.insee.vtl.model.BooleanExpression;
+import fr.insee.vtl.model.DataPoint;
+import fr.insee.vtl.model.DataStructure;
 import fr.insee.vtl.model.Dataset;
 import fr.insee.vtl.model.DatasetExpression;
-import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.LazyDataset;
 import fr.insee.vtl.model.ResolvableExpression;
 import fr.insee.vtl.parser.VtlBaseVisitor;
 import fr.insee.vtl.parser.VtlParser;
@@ -11,17 +19,20 @@ import fr.insee.vtl.parser.VtlParser;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static fr.insee.vtl.engine.utils.TypeChecking.assertBoolean;
+
 public class ClauseVisitor extends VtlBaseVisitor<DatasetExpression> {
 
     private final DatasetExpression datasetExpression;
+    private final DataStructure structure;
     private final ExpressionVisitor componentExpressionVisitor;
 
     public ClauseVisitor(DatasetExpression datasetExpression) {
         this.datasetExpression = Objects.requireNonNull(datasetExpression);
-        // Here we "switch" to the dataset context.
-        Map<String, Object> componentMap = datasetExpression.getDataStructure().stream()
-                .collect(Collectors.toMap(Dataset.Component::getName, component -> component));
-        this.componentExpressionVisitor = new ExpressionVisitor(componentMap);
+        // Here we "switch" to the dataset context. Component expressions are bound to the
+        // positions in this structure and evaluated against data points sharing it.
+        this.structure = new DataStructure(datasetExpression.getDataStructure());
+        this.componentExpressionVisitor = new ExpressionVisitor(structure);
     }
 
     private String getName(VtlParser.ComponentIDContext context) {
@@ -40,88 +51,65 @@ public class ClauseVisitor extends VtlBaseVisitor<DatasetExpression> {
                 .filter(component -> keep == componentNames.contains(component.getName()))
                 .collect(Collectors.toList());
 
-        return new DatasetExpression() {
-            @Override
-            public Dataset resolve(Map<String, Object> context) {
-                var columnNames = getColumnNames();
-                List<List<Object>> result = datasetExpression.resolve(context).getDataAsMap().stream()
-                        .map(data -> data.entrySet().stream().filter(entry -> columnNames.contains(entry.getKey()))
-                                .collect(HashMap<String, Object>::new, (acc, entry) -> acc.put(entry.getKey(), entry.getValue()), HashMap::putAll))
-                        .map(map -> Dataset.mapToRowMajor(map, getColumnNames())).collect(Collectors.toList());
-                return new InMemoryDataset(result, getDataStructure());
-            }
+        // Positions of the kept components in the rows of the dataset.
+        var indices = structure.stream().mapToInt(component -> this.structure.indexOf(component.getName())).toArray();
 
-            @Override
-            public List<Dataset.Component> getDataStructure() {
-                return structure;
-            }
-        };
+        return ClausePipeline.of(datasetExpression).project(indices, structure);
     }
 
     @Override
     public DatasetExpression visitCalcClause(VtlParser.CalcClauseContext ctx) {
 
-        var structure = new ArrayList<>(datasetExpression.getDataStructure());
-        var expressions = new HashMap<String, ResolvableExpression>();
+        // Items are evaluated in the order of the script.
+        var expressions = new LinkedHashMap<String, ResolvableExpression>();
         for (VtlParser.CalcClauseItemContext calcCtx : ctx.calcClauseItem()) {
-
-
             var columnName = getName(calcCtx.componentID());
             ResolvableExpression calc = componentExpressionVisitor.visit(calcCtx);
-
-            // We construct a new structure
-            // TODO: Handle role. Ie: Optional.ofNullable(calcCtx.componentRole());
-            structure.add(new Dataset.Component(columnName, calc.getType(), Dataset.Role.MEASURE));
-
             expressions.put(columnName, calc);
         }
 
-        return new DatasetExpression() {
-            @Override
-            public Dataset resolve(Map<String, Object> context) {
-                var dataset = datasetExpression.resolve(context);
-                var columns = getColumnNames();
-                List<List<Object>> result = dataset.getDataAsMap().stream().map(map -> {
-                    var newMap = new HashMap<>(map);
-                    for (String columnName : expressions.keySet()) {
-                        newMap.put(columnName, expressions.get(columnName).resolve(newMap));
-                    }
-                    return newMap;
-                }).map(map -> Dataset.mapToRowMajor(map, columns)).collect(Collectors.toList());
-                return new InMemoryDataset(result, structure);
+        // We construct a new structure, replacing the component if it already exists. Each column of the new
+        // structure is read either from the parent data point (positive source) or from the computed values.
+        var structure = new ArrayList<>(datasetExpression.getDataStructure());
+        var sources = new int[structure.size() + expressions.size()];
+        for (int i = 0; i < structure.size(); i++) {
+            sources[i] = i;
+        }
+        var calcs = new ResolvableExpression[expressions.size()];
+        var k = 0;
+        for (Map.Entry<String, ResolvableExpression> entry : expressions.entrySet()) {
+            // TODO: Handle role. Ie: Optional.ofNullable(calcCtx.componentRole());
+            var component = new Dataset.Component(entry.getKey(), entry.getValue().getType(), Dataset.Role.MEASURE);
+            var index = this.structure.indexOf(entry.getKey());
+            if (index < 0) {
+                index = structure.size();
+                structure.add(component);
+            } else {
+                structure.set(index, component);
             }
+            sources[index] = -(k + 1);
+            calcs[k++] = entry.getValue();
+        }
+        var columns = Arrays.copyOf(sources, structure.size());
 
-            @Override
-            public List<Dataset.Component> getDataStructure() {
-                return structure;
+        return ClausePipeline.of(datasetExpression).then(row -> {
+            var dataPoint = new DataPoint(this.structure, row);
+            var values = new Object[calcs.length];
+            for (int j = 0; j < calcs.length; j++) {
+                values[j] = calcs[j].resolve(dataPoint);
             }
-        };
-
+            return new CalcRow(row, values, columns);
+        }, structure);
     }
 
     @Override
     public DatasetExpression visitFilterClause(VtlParser.FilterClauseContext ctx) {
-        ResolvableExpression filter = componentExpressionVisitor.visit(ctx.expr());
-
-        return new DatasetExpression() {
-
-            @Override
-            public List<Dataset.Component> getDataStructure() {
-                return datasetExpression.getDataStructure();
-            }
-
-            @Override
-            public Dataset resolve(Map<String, Object> context) {
-                Dataset resolve = datasetExpression.resolve(context);
-                List<String> columns = resolve.getColumnNames();
-                List<List<Object>> result = resolve.getDataAsMap().stream()
-                        .filter(map -> (Boolean) filter.resolve(map))
-                        .map(map -> Dataset.mapToRowMajor(map, columns))
-                        .collect(Collectors.toList());
-                return new InMemoryDataset(result, getDataStructure());
-            }
+        // Data points for which the condition is null are dropped.
+        BooleanExpression filter = BooleanExpression.wrap(
+                assertBoolean(componentExpressionVisitor.visit(ctx.expr()), ctx.expr())
+        );
 
-        };
+        return ClausePipeline.of(datasetExpression).filter(row -> filter.resolveBoolean(new DataPoint(structure, row)));
     }
 
     @Override
@@ -137,29 +125,127 @@ public class ClauseVisitor extends VtlBaseVisitor<DatasetExpression> {
                     new Dataset.Component(fromTo.get(component.getName()), component.getType(), component.getRole());
         }).collect(Collectors.toList());
 
+        // Renamed components keep their position so the data points are left untouched.
+        return ClausePipeline.of(datasetExpression).withStructure(structure);
+    }
+
+    @Override
+    public DatasetExpression visitAggrClause(VtlParser.AggrClauseContext ctx) {
+
+        var keys = AggregateFunctionsVisitor.groupBy(structure, ctx.groupingClause());
+
+        // The result has the grouping components as identifiers followed by the aggregates.
+        var outputStructure = new ArrayList<Dataset.Component>();
+        for (String key : keys) {
+            var component = structure.get(key);
+            outputStructure.add(new Dataset.Component(key, component.getType(), Dataset.Role.IDENTIFIER));
+        }
+        var functions = new ArrayList<AggregateFunction>();
+        for (VtlParser.AggrFunctionClauseContext functionCtx : ctx.aggregateClause().aggrFunctionClause()) {
+            var function = aggregateFunction(functionCtx.aggrOperatorsGrouping(), componentExpressionVisitor);
+            functions.add(function);
+            outputStructure.add(new Dataset.Component(
+                    getName(functionCtx.componentID()), function.getType(), getRole(functionCtx.componentRole())
+            ));
+        }
+
+        var havingCtx = ctx.havingClause();
+        if (havingCtx == null) {
+            var aggregation = new HashAggregation(structure, keys, functions);
+            return new DatasetExpression() {
+                @Override
+                public Dataset resolve(Map<String, Object> context) {
+                    var dataset = datasetExpression.resolve(context);
+                    var memoryBudget = AggregateFunctionsVisitor.getMemoryBudget(context);
+                    return new LazyDataset(() -> aggregation.aggregate(dataset.stream(), memoryBudget), outputStructure);
+                }
+
+                @Override
+                public List<Dataset.Component> getDataStructure() {
+                    return outputStructure;
+                }
+            };
+        }
+
+        // The aggregates of the having condition are computed with the others and stored after the visible
+        // components. The condition is evaluated on data points of the visible structure, whose components are
+        // bound by position, and reads the hidden aggregates by position as well.
+        var visibleStructure = new DataStructure(outputStructure);
+        var visibleSize = visibleStructure.size();
+        var havingVisitor = new ExpressionVisitor(visibleStructure) {
+            @Override
+            public ResolvableExpression visitAggregateFunctions(VtlParser.AggregateFunctionsContext aggregateCtx) {
+                var function = aggregateFunction(aggregateCtx.aggrOperatorsGrouping(), componentExpressionVisitor);
+                var index = keys.size() + functions.size();
+                functions.add(function);
+                return AggregateFunctionsVisitor.column(function.getType(), index);
+            }
+        };
+        var having = BooleanExpression.wrap(assertBoolean(havingVisitor.visit(havingCtx.expr()), havingCtx.expr()));
+        var aggregation = new HashAggregation(structure, keys, functions);
         return new DatasetExpression() {
             @Override
             public Dataset resolve(Map<String, Object> context) {
-                var result = datasetExpression.resolve(context).getDataAsMap().stream()
-                        .map(map -> {
-                            var newMap = new HashMap<>(map);
-                            for (String fromName : fromTo.keySet()) {
-                                newMap.remove(fromName);
-                            }
-                            for (String fromName : fromTo.keySet()) {
-                                var toName = fromTo.get(fromName);
-                                newMap.put(toName, map.get(fromName));
-                            }
-                            return newMap;
-                        }).map(map -> Dataset.mapToRowMajor(map, getColumnNames()))
-                        .collect(Collectors.toList());
-                return new InMemoryDataset(result, getDataStructure());
+                var dataset = datasetExpression.resolve(context);
+                var memoryBudget = AggregateFunctionsVisitor.getMemoryBudget(context);
+                return new LazyDataset(() -> aggregation.aggregate(dataset.stream(), memoryBudget)
+                        .filter(row -> having.resolveBoolean(new DataPoint(visibleStructure, row)))
+                        .map(row -> row.subList(0, visibleSize)), outputStructure);
             }
 
             @Override
             public List<Dataset.Component> getDataStructure() {
-                return structure;
+                return outputStructure;
             }
         };
     }
+
+    private static AggregateFunction aggregateFunction(VtlParser.AggrOperatorsGroupingContext ctx,
+                                                       ExpressionVisitor expressionVisitor) {
+        var aggregateCtx = (VtlParser.AggrDatasetContext) ctx;
+        if (aggregateCtx.groupingClause() != null) {
+            throw new VtlRuntimeException(new VtlScriptException(
+                    "the grouping of an aggr clause must follow the aggregates", aggregateCtx.groupingClause()
+            ));
+        }
+        return AggregateFunctionsVisitor.aggregateFunction(aggregateCtx, expressionVisitor.visit(aggregateCtx.expr()));
+    }
+
+    private static Dataset.Role getRole(VtlParser.ComponentRoleContext ctx) {
+        if (ctx == null || ctx.MEASURE() != null || ctx.COMPONENT() != null) {
+            return Dataset.Role.MEASURE;
+        }
+        if (ctx.DIMENSION() != null) {
+            return Dataset.Role.IDENTIFIER;
+        }
+        return Dataset.Role.ATTRIBUTE;
+    }
+
+    /**
+     * Data point resulting from a calc clause, sharing the values of the parent data point and only storing the
+     * computed ones.
+     */
+    private static class CalcRow extends AbstractList<Object> implements RandomAccess {
+
+        private final List<Object> row;
+        private final Object[] values;
+        private final int[] sources;
+
+        CalcRow(List<Object> row, Object[] values, int[] sources) {
+            this.row = row;
+            this.values = values;
+            this.sources = sources;
+        }
+
+        @Override
+        public Object get(int index) {
+            var source = sources[index];
+            return source >= 0 ? row.get(source) : values[-source - 1];
+        }
+
+        @Override
+        public int size() {
+            return sources.length;
+        }
+    }
 }
@@ -51,18 +51,18 @@ public class ArithmeticExprOrConcatVisitor extends VtlBaseVisitor<ResolvableExpr
         var leftExpression = assertNumber(exprVisitor.visit(left), left);
         var rightExpression = assertNumber(exprVisitor.visit(right), right);
         if (isLong(leftExpression) && isLong(rightExpression)) {
-            return LongExpression.of(context -> {
-                Long leftValue = (Long) leftExpression.resolve(context);
-                Long rightValue = (Long) rightExpression.resolve(context);
-                return leftValue + rightValue;
+            var leftLong = LongExpression.wrap(leftExpression);
+            var rightLong = LongExpression.wrap(rightExpression);
+            return LongExpression.of((context, isNull) -> {
+                long leftValue = leftLong.resolveLong(context, isNull);
+                return isNull[0] ? 0L : leftValue + rightLong.resolveLong(context, isNull);
             });
         }
-        return DoubleExpression.of(context -> {
-            var leftValue = leftExpression.resolve(context);
-            var rightValue = rightExpression.resolve(context);
-            var leftDouble = leftValue instanceof Long ? ((Long) leftValue).doubleValue() : (Double) leftValue;
-            var rightDouble = rightValue instanceof Long ? ((Long) rightValue).doubleValue() : (Double) rightValue;
-            return leftDouble + rightDouble;
+        var leftDouble = DoubleExpression.wrap(leftExpression);
+        var rightDouble = DoubleExpression.wrap(rightExpression);
+        return DoubleExpression.of((context, isNull) -> {
+            double leftValue = leftDouble.resolveDouble(context, isNull);
+            return isNull[0] ? 0D : leftValue + rightDouble.resolveDouble(context, isNull);
         });
     }
 
@@ -70,18 +70,18 @@ public class ArithmeticExprOrConcatVisitor extends VtlBaseVisitor<ResolvableExpr
         var leftExpression = assertNumber(exprVisitor.visit(left), left);
         var rightExpression = assertNumber(exprVisitor.visit(right), right);
         if (isLong(leftExpression) && isLong(rightExpression)) {
-            return LongExpression.of(context -> {
-                Long leftValue = (Long) leftExpression.resolve(context);
-                Long rightValue = (Long) rightExpression.resolve(context);
-                return leftValue - rightValue;
+            var leftLong = LongExpression.wrap(leftExpression);
+            var rightLong = LongExpression.wrap(rightExpression);
+            return LongExpression.of((context, isNull) -> {
+                long leftValue = leftLong.resolveLong(context, isNull);
+                return isNull[0] ? 0L : leftValue - rightLong.resolveLong(context, isNull);
             });
         }
-        return DoubleExpression.of(context -> {
-            var leftValue = leftExpression.resolve(context);
-            var rightValue = rightExpression.resolve(context);
-            var leftDouble = leftValue instanceof Long ? ((Long) leftValue).doubleValue() : (Double) leftValue;
-            var rightDouble = rightValue instanceof Long ? ((Long) rightValue).doubleValue() : (Double) rightValue;
-            return leftDouble - rightDouble;
+        var leftDouble = DoubleExpression.wrap(leftExpression);
+        var rightDouble = DoubleExpression.wrap(rightExpression);
+        return DoubleExpression.of((context, isNull) -> {
+            double leftValue = leftDouble.resolveDouble(context, isNull);
+            return isNull[0] ? 0D : leftValue - rightDouble.resolveDouble(context, isNull);
         });
     }
 
@@ -91,6 +91,9 @@ public class ArithmeticExprOrConcatVisitor extends VtlBaseVisitor<ResolvableExpr
         return StringExpression.of(context -> {
             String leftValue = (String) leftExpression.resolve(context);
             String rightValue = (String) rightExpression.resolve(context);
+            if (leftValue == null || rightValue == null) {
+                return null;
+            }
             return leftValue.concat(rightValue);
         });
     }
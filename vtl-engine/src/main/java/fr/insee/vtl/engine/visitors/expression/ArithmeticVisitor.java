@@ -53,30 +53,27 @@ public class ArithmeticVisitor extends VtlBaseVisitor<ResolvableExpression> {
         var leftExpression = assertNumber(exprVisitor.visit(left), left);
         var rightExpression = assertNumber(exprVisitor.visit(right), right);
         if (isLong(leftExpression) && isLong(rightExpression)) {
-            return LongExpression.of(context -> {
-                Long leftValue = (Long) leftExpression.resolve(context);
-                Long rightValue = (Long) rightExpression.resolve(context);
-                return leftValue * rightValue;
+            var leftLong = LongExpression.wrap(leftExpression);
+            var rightLong = LongExpression.wrap(rightExpression);
+            return LongExpression.of((context, isNull) -> {
+                long leftValue = leftLong.resolveLong(context, isNull);
+                return isNull[0] ? 0L : leftValue * rightLong.resolveLong(context, isNull);
             });
         }
-        return DoubleExpression.of(context -> {
-            var leftValue = leftExpression.resolve(context);
-            var rightValue = rightExpression.resolve(context);
-            var leftDouble = leftValue instanceof Long ? ((Long) leftValue).doubleValue() : (Double) leftValue;
-            var rightDouble = rightValue instanceof Long ? ((Long) rightValue).doubleValue() : (Double) rightValue;
-            return leftDouble * rightDouble;
+        var leftDouble = DoubleExpression.wrap(leftExpression);
+        var rightDouble = DoubleExpression.wrap(rightExpression);
+        return DoubleExpression.of((context, isNull) -> {
+            double leftValue = leftDouble.resolveDouble(context, isNull);
+            return isNull[0] ? 0D : leftValue * rightDouble.resolveDouble(context, isNull);
         });
     }
 
     private ResolvableExpression handleDivision(VtlParser.ExprContext left, VtlParser.ExprContext right) {
-        var leftExpression = assertNumber(exprVisitor.visit(left), left);
-        var rightExpression = assertNumber(exprVisitor.visit(right), right);
-        return DoubleExpression.of(context -> {
-            var leftValue = leftExpression.resolve(context);
-            var rightValue = rightExpression.resolve(context);
-            var leftDouble = leftValue instanceof Long ? ((Long) leftValue).doubleValue() : (Double) leftValue;
-            var rightDouble = rightValue instanceof Long ? ((Long) rightValue).doubleValue() : (Double) rightValue;
-            return leftDouble / rightDouble;
+        var leftDouble = DoubleExpression.wrap(assertNumber(exprVisitor.visit(left), left));
+        var rightDouble = DoubleExpression.wrap(assertNumber(exprVisitor.visit(right), right));
+        return DoubleExpression.of((context, isNull) -> {
+            double leftValue = leftDouble.resolveDouble(context, isNull);
+            return isNull[0] ? 0D : leftValue / rightDouble.resolveDouble(context, isNull);
         });
     }
 }
@@ -46,31 +46,46 @@ public class BooleanVisitor extends VtlBaseVisitor<ResolvableExpression> {
     }
 
     private ResolvableExpression handleAnd(VtlParser.ExprContext left, VtlParser.ExprContext right) {
-        var leftExpression = assertBoolean(exprVisitor.visit(left), left);
-        var rightExpression = assertBoolean(exprVisitor.visit(right), right);
+        var leftExpression = BooleanExpression.wrap(assertBoolean(exprVisitor.visit(left), left));
+        var rightExpression = BooleanExpression.wrap(assertBoolean(exprVisitor.visit(right), right));
         return BooleanExpression.of(context -> {
-            var leftValue = (Boolean) leftExpression.resolve(context);
-            var rightValue = (Boolean) rightExpression.resolve(context);
-            return leftValue && rightValue;
+            Boolean leftValue = leftExpression.resolve(context);
+            if (Boolean.FALSE.equals(leftValue)) {
+                return false;
+            }
+            Boolean rightValue = rightExpression.resolve(context);
+            if (Boolean.FALSE.equals(rightValue)) {
+                return false;
+            }
+            return leftValue == null || rightValue == null ? null : true;
         });
     }
 
     private ResolvableExpression handleOr(VtlParser.ExprContext left, VtlParser.ExprContext right) {
-        var leftExpression = assertBoolean(exprVisitor.visit(left), left);
-        var rightExpression = assertBoolean(exprVisitor.visit(right), right);
+        var leftExpression = BooleanExpression.wrap(assertBoolean(exprVisitor.visit(left), left));
+        var rightExpression = BooleanExpression.wrap(assertBoolean(exprVisitor.visit(right), right));
         return BooleanExpression.of(context -> {
-            var leftValue = (Boolean) leftExpression.resolve(context);
-            var rightValue = (Boolean) rightExpression.resolve(context);
-            return leftValue || rightValue;
+            Boolean leftValue = leftExpression.resolve(context);
+            if (Boolean.TRUE.equals(leftValue)) {
+                return true;
+            }
+            Boolean rightValue = rightExpression.resolve(context);
+            if (Boolean.TRUE.equals(rightValue)) {
+                return true;
+            }
+            return leftValue == null || rightValue == null ? null : false;
         });
     }
 
     private ResolvableExpression handleXor(VtlParser.ExprContext left, VtlParser.ExprContext right) {
-        var leftExpression = assertBoolean(exprVisitor.visit(left), left);
-        var rightExpression = assertBoolean(exprVisitor.visit(right), right);
+        var leftExpression = BooleanExpression.wrap(assertBoolean(exprVisitor.visit(left), left));
+        var rightExpression = BooleanExpression.wrap(assertBoolean(exprVisitor.visit(right), right));
         return BooleanExpression.of(context -> {
-            var leftValue = (Boolean) leftExpression.resolve(context);
-            var rightValue = (Boolean) rightExpression.resolve(context);
+            Boolean leftValue = leftExpression.resolve(context);
+            Boolean rightValue = rightExpression.resolve(context);
+            if (leftValue == null || rightValue == null) {
+                return null;
+            }
             return leftValue ^ rightValue;
         });
     }
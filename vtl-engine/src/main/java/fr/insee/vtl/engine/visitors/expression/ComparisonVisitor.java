@@ -5,7 +5,9 @@ import fr.insee.vtl.engine.exceptions.InvalidTypeException;
 import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
 import fr.insee.vtl.engine.utils.TypeChecking;
 import fr.insee.vtl.model.BooleanExpression;
+import fr.insee.vtl.model.DoubleExpression;
 import fr.insee.vtl.model.ListExpression;
+import fr.insee.vtl.model.LongExpression;
 import fr.insee.vtl.model.ResolvableExpression;
 import fr.insee.vtl.model.TypedExpression;
 import fr.insee.vtl.parser.VtlBaseVisitor;
@@ -59,82 +61,113 @@ public class ComparisonVisitor extends VtlBaseVisitor<ResolvableExpression> {
 
         switch (type.getType()) {
             case VtlParser.EQ:
-                return BooleanExpression.of(context -> {
-                    Object leftValue = leftExpression.resolve(context);
-                    Object rightValue = rightExpression.resolve(context);
-                    return leftValue.equals(rightValue);
-                });
+                return handleEquality(leftExpression, rightExpression, true);
             case VtlParser.NEQ:
-                return BooleanExpression.of(context -> {
-                    Object leftValue = leftExpression.resolve(context);
-                    Object rightValue = rightExpression.resolve(context);
-                    return !leftValue.equals(rightValue);
-                });
+                return handleEquality(leftExpression, rightExpression, false);
             case VtlParser.LT:
-                return BooleanExpression.of(context -> {
-                    if (TypeChecking.isLong(leftExpression) && TypeChecking.isLong(rightExpression)) {
-                        Long leftValue = (Long) leftExpression.resolve(context);
-                        Long rightValue = (Long) rightExpression.resolve(context);
-                        return leftValue < rightValue;
-                    } else if (TypeChecking.isDouble(leftExpression) && TypeChecking.isDouble(rightExpression)) {
-                        Double leftValue = (Double) leftExpression.resolve(context);
-                        Double rightValue = (Double) rightExpression.resolve(context);
-                        return leftValue < rightValue;
-                    }
-                    throw new VtlRuntimeException(
-                            new InvalidTypeException(leftExpression.getType(), rightExpression.getType(), ctx.right)
-                    );
-                });
+                return handleOrdering(leftExpression, rightExpression, ctx, (leftLong, rightLong) -> leftLong < rightLong,
+                        (leftDouble, rightDouble) -> leftDouble < rightDouble);
             case VtlParser.MT:
-                return BooleanExpression.of(context -> {
-                    if (TypeChecking.isLong(leftExpression) && TypeChecking.isLong(rightExpression)) {
-                        Long leftValue = (Long) leftExpression.resolve(context);
-                        Long rightValue = (Long) rightExpression.resolve(context);
-                        return leftValue > rightValue;
-                    } else if (TypeChecking.isDouble(leftExpression) && TypeChecking.isDouble(rightExpression)) {
-                        Double leftValue = (Double) leftExpression.resolve(context);
-                        Double rightValue = (Double) rightExpression.resolve(context);
-                        return leftValue > rightValue;
-                    }
-                    throw new VtlRuntimeException(
-                            new InvalidTypeException(leftExpression.getType(), rightExpression.getType(), ctx.right)
-                    );
-                });
+                return handleOrdering(leftExpression, rightExpression, ctx, (leftLong, rightLong) -> leftLong > rightLong,
+                        (leftDouble, rightDouble) -> leftDouble > rightDouble);
             case VtlParser.LE:
-                return BooleanExpression.of(context -> {
-                    if (TypeChecking.isLong(leftExpression) && TypeChecking.isLong(rightExpression)) {
-                        Long leftValue = (Long) leftExpression.resolve(context);
-                        Long rightValue = (Long) rightExpression.resolve(context);
-                        return leftValue <= rightValue;
-                    } else if (TypeChecking.isDouble(leftExpression) && TypeChecking.isDouble(rightExpression)) {
-                        Double leftValue = (Double) leftExpression.resolve(context);
-                        Double rightValue = (Double) rightExpression.resolve(context);
-                        return leftValue <= rightValue;
-                    }
-                    throw new VtlRuntimeException(
-                            new InvalidTypeException(leftExpression.getType(), rightExpression.getType(), ctx.right)
-                    );
-                });
+                return handleOrdering(leftExpression, rightExpression, ctx, (leftLong, rightLong) -> leftLong <= rightLong,
+                        (leftDouble, rightDouble) -> leftDouble <= rightDouble);
             case VtlParser.ME:
-                return BooleanExpression.of(context -> {
-                    if (TypeChecking.isLong(leftExpression) && TypeChecking.isLong(rightExpression)) {
-                        Long leftValue = (Long) leftExpression.resolve(context);
-                        Long rightValue = (Long) rightExpression.resolve(context);
-                        return leftValue >= rightValue;
-                    } else if (TypeChecking.isDouble(leftExpression) && TypeChecking.isDouble(rightExpression)) {
-                        Double leftValue = (Double) leftExpression.resolve(context);
-                        Double rightValue = (Double) rightExpression.resolve(context);
-                        return leftValue >= rightValue;
-                    }
-                    throw new VtlRuntimeException(
-                            new InvalidTypeException(leftExpression.getType(), rightExpression.getType(), ctx.right)
-                    );
-                });
+                return handleOrdering(leftExpression, rightExpression, ctx, (leftLong, rightLong) -> leftLong >= rightLong,
+                        (leftDouble, rightDouble) -> leftDouble >= rightDouble);
             default:
                 throw new UnsupportedOperationException("unknown operator " + ctx);
         }
     }
 
+    private ResolvableExpression handleEquality(ResolvableExpression leftExpression,
+                                                ResolvableExpression rightExpression, boolean equal) {
+        if (TypeChecking.isLong(leftExpression)) {
+            var leftLong = LongExpression.wrap(leftExpression);
+            var rightLong = LongExpression.wrap(rightExpression);
+            return BooleanExpression.of(context -> {
+                var isNull = new boolean[1];
+                long leftValue = leftLong.resolveLong(context, isNull);
+                if (isNull[0]) {
+                    return null;
+                }
+                long rightValue = rightLong.resolveLong(context, isNull);
+                if (isNull[0]) {
+                    return null;
+                }
+                return (leftValue == rightValue) == equal;
+            });
+        }
+        if (TypeChecking.isDouble(leftExpression)) {
+            var leftDouble = DoubleExpression.wrap(leftExpression);
+            var rightDouble = DoubleExpression.wrap(rightExpression);
+            return BooleanExpression.of(context -> {
+                var isNull = new boolean[1];
+                double leftValue = leftDouble.resolveDouble(context, isNull);
+                if (isNull[0]) {
+                    return null;
+                }
+                double rightValue = rightDouble.resolveDouble(context, isNull);
+                if (isNull[0]) {
+                    return null;
+                }
+                // Same semantics as Double.equals: NaN is equal to itself, 0.0 and -0.0 are different.
+                return (Double.doubleToLongBits(leftValue) == Double.doubleToLongBits(rightValue)) == equal;
+            });
+        }
+        return BooleanExpression.of(context -> {
+            Object leftValue = leftExpression.resolve(context);
+            Object rightValue = rightExpression.resolve(context);
+            if (leftValue == null || rightValue == null) {
+                return null;
+            }
+            return leftValue.equals(rightValue) == equal;
+        });
+    }
+
+    private ResolvableExpression handleOrdering(ResolvableExpression leftExpression,
+                                                ResolvableExpression rightExpression,
+                                                VtlParser.ComparisonExprContext ctx,
+                                                LongBinaryPredicate longPredicate,
+                                                DoubleBinaryPredicate doublePredicate) {
+        if (TypeChecking.isLong(leftExpression)) {
+            var leftLong = LongExpression.wrap(leftExpression);
+            var rightLong = LongExpression.wrap(rightExpression);
+            return BooleanExpression.of(context -> {
+                var isNull = new boolean[1];
+                long leftValue = leftLong.resolveLong(context, isNull);
+                if (isNull[0]) {
+                    return null;
+                }
+                long rightValue = rightLong.resolveLong(context, isNull);
+                if (isNull[0]) {
+                    return null;
+                }
+                return longPredicate.test(leftValue, rightValue);
+            });
+        }
+        if (TypeChecking.isDouble(leftExpression)) {
+            var leftDouble = DoubleExpression.wrap(leftExpression);
+            var rightDouble = DoubleExpression.wrap(rightExpression);
+            return BooleanExpression.of(context -> {
+                var isNull = new boolean[1];
+                double leftValue = leftDouble.resolveDouble(context, isNull);
+                if (isNull[0]) {
+                    return null;
+                }
+                double rightValue = rightDouble.resolveDouble(context, isNull);
+                if (isNull[0]) {
+                    return null;
+                }
+                return doublePredicate.test(leftValue, rightValue);
+            });
+        }
+        throw new VtlRuntimeException(
+                new InvalidTypeException(leftExpression.getType(), rightExpression.getType(), ctx.right)
+        );
+    }
+
     /**
      * Visits 'element of' ('In' or 'Not in') expressions.
      *
@@ -217,4 +250,14 @@ public class ComparisonVisitor extends VtlBaseVisitor<ResolvableExpression> {
             }
         };
     }
+
+    @FunctionalInterface
+    private interface LongBinaryPredicate {
+        boolean test(long left, long right);
+    }
+
+    @FunctionalInterface
+    private interface DoubleBinaryPredicate {
+        boolean test(double left, double right);
+    }
 }
@@ -1,39 +1,79 @@
 package fr.insee.vtl.engine.visitors.expression;
 
+import fr.insee.vtl.model.BooleanExpression;
+import fr.insee.vtl.model.DoubleExpression;
+import fr.insee.vtl.model.LongExpression;
 import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.model.StringExpression;
 import fr.insee.vtl.parser.VtlBaseVisitor;
 import fr.insee.vtl.parser.VtlParser;
 
+import java.util.Map;
+
 /**
  * <code>ConstantVisitor</code> is the base visitor for constant expressions.
  */
 public class ConstantVisitor extends VtlBaseVisitor<ResolvableExpression> {
 
+    /**
+     * Returns a constant expression of the given type.
+     *
+     * @param type  The type of the constant.
+     * @param value The value of the constant.
+     * @return A typed <code>ResolvableExpression</code> always resolving to the given value.
+     */
+    static ResolvableExpression constant(Class<?> type, Object value) {
+        if (Long.class.equals(type)) {
+            return LongExpression.of((Long) value);
+        }
+        if (Double.class.equals(type)) {
+            return DoubleExpression.of((Double) value);
+        }
+        if (Boolean.class.equals(type)) {
+            return BooleanExpression.of((Boolean) value);
+        }
+        if (String.class.equals(type)) {
+            String string = (String) value;
+            return StringExpression.of(context -> string);
+        }
+        return new ResolvableExpression() {
+            @Override
+            public Object resolve(Map<String, Object> context) {
+                return value;
+            }
+
+            @Override
+            public Class<?> getType() {
+                return type;
+            }
+        };
+    }
+
     /**
      * Visits constants expressions.
+     * <p>
+     * The literals are parsed once, when visited.
      *
      * @param ctx The scripting context for the expression.
      * @return A <code>ResolvableExpression</code> resolving to the constant value with the expected type.
      */
     @Override
     public ResolvableExpression visitConstant(VtlParser.ConstantContext ctx) {
+        String text = ctx.getText();
         if (ctx.INTEGER_CONSTANT() != null) {
-            return ResolvableExpression.withType(Long.class, context -> Long.parseLong(ctx.getText()));
+            return constant(Long.class, Long.parseLong(text));
         }
         if (ctx.NUMBER_CONSTANT() != null) {
-            return ResolvableExpression.withType(Double.class, context -> Double.parseDouble(ctx.getText()));
+            return constant(Double.class, Double.parseDouble(text));
         }
         if (ctx.BOOLEAN_CONSTANT() != null) {
-            return ResolvableExpression.withType(Boolean.class, context -> Boolean.parseBoolean(ctx.getText()));
+            return constant(Boolean.class, Boolean.parseBoolean(text));
         }
         if (ctx.STRING_CONSTANT() != null) {
-            return ResolvableExpression.withType(String.class, context -> {
-                String text = ctx.getText();
-                return text.substring(1, text.length() - 1);
-            });
+            return constant(String.class, text.substring(1, text.length() - 1));
         }
         if (ctx.NULL_CONSTANT() != null) {
-            return ResolvableExpression.withType(Object.class, context -> null);
+            return constant(Object.class, null);
         }
         throw new UnsupportedOperationException("unknown constant type " + ctx);
     }
@@ -1,15 +1,21 @@
 package fr.insee.vtl.engine.visitors.expression;
 
 import fr.insee.vtl.engine.visitors.ClauseVisitor;
+import fr.insee.vtl.engine.visitors.expression.functions.AggregateFunctionsVisitor;
 import fr.insee.vtl.engine.visitors.expression.functions.ComparisonFunctionsVisitor;
+import fr.insee.vtl.engine.visitors.expression.functions.JoinFunctionsVisitor;
 import fr.insee.vtl.engine.visitors.expression.functions.StringFunctionsVisitor;
 import fr.insee.vtl.model.DatasetExpression;
 import fr.insee.vtl.model.ResolvableExpression;
 import fr.insee.vtl.parser.VtlBaseVisitor;
 import fr.insee.vtl.parser.VtlParser;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
 
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * <code>ExpressionVisitor</code> is the base visitor for expressions.
@@ -18,6 +24,38 @@ import java.util.Objects;
 public class ExpressionVisitor extends VtlBaseVisitor<ResolvableExpression> {
 
     private static final ConstantVisitor CONSTANT_VISITOR = new ConstantVisitor();
+
+    /**
+     * Kinds of tree whose value only depends on their children. A subtree made of these kinds and of constants
+     * is evaluated once, when visited.
+     */
+    private static final Set<Class<? extends ParseTree>> FOLDABLE = Set.of(
+            VtlParser.ConstantExprContext.class,
+            VtlParser.ConstantContext.class,
+            VtlParser.ParenthesisExprContext.class,
+            VtlParser.UnaryExprContext.class,
+            VtlParser.ArithmeticExprContext.class,
+            VtlParser.ArithmeticExprOrConcatContext.class,
+            VtlParser.ComparisonExprContext.class,
+            VtlParser.ComparisonOperandContext.class,
+            VtlParser.InNotInExprContext.class,
+            VtlParser.ListsContext.class,
+            VtlParser.BooleanExprContext.class,
+            VtlParser.IfExprContext.class,
+            VtlParser.FunctionsExpressionContext.class,
+            VtlParser.StringFunctionsContext.class,
+            VtlParser.UnaryStringFunctionContext.class,
+            VtlParser.SubstrAtomContext.class,
+            VtlParser.ReplaceAtomContext.class,
+            VtlParser.InstrAtomContext.class,
+            VtlParser.OptionalExprContext.class,
+            VtlParser.ComparisonFunctionsContext.class,
+            VtlParser.BetweenAtomContext.class,
+            VtlParser.CharsetMatchAtomContext.class,
+            VtlParser.IsNullAtomContext.class
+    );
+
+    private final Map<ParseTree, Boolean> constantTrees = new IdentityHashMap<>();
     private final VarIdVisitor varIdVisitor;
     private final BooleanVisitor booleanVisitor;
     private final ArithmeticVisitor arithmeticVisitor;
@@ -27,13 +65,15 @@ public class ExpressionVisitor extends VtlBaseVisitor<ResolvableExpression> {
     private final IfVisitor ifVisitor;
     private final StringFunctionsVisitor stringFunctionsVisitor;
     private final ComparisonFunctionsVisitor comparisonFunctionsVisitor;
+    private final AggregateFunctionsVisitor aggregateFunctionsVisitor;
+    private final JoinFunctionsVisitor joinFunctionsVisitor;
 
     /**
      * Constructor taking a scripting context.
      *
-     * @param context The map
+     * @param context The map of the variables in scope, for instance the bindings or the {@link fr.insee.vtl.model.DataStructure} of a dataset.
      */
-    public ExpressionVisitor(Map<String, Object> context) {
+    public ExpressionVisitor(Map<String, ?> context) {
         Objects.requireNonNull(context);
         varIdVisitor = new VarIdVisitor(context);
         booleanVisitor = new BooleanVisitor(this);
@@ -44,6 +84,52 @@ public class ExpressionVisitor extends VtlBaseVisitor<ResolvableExpression> {
         ifVisitor = new IfVisitor(this);
         stringFunctionsVisitor = new StringFunctionsVisitor(this);
         comparisonFunctionsVisitor = new ComparisonFunctionsVisitor(this);
+        aggregateFunctionsVisitor = new AggregateFunctionsVisitor(this);
+        joinFunctionsVisitor = new JoinFunctionsVisitor(this);
+    }
+
+    /**
+     * Visits a tree, replacing expressions that do not depend on any variable by their value.
+     *
+     * @param tree The tree to visit.
+     * @return A <code>ResolvableExpression</code> for the tree.
+     */
+    @Override
+    public ResolvableExpression visit(ParseTree tree) {
+        ResolvableExpression expression = super.visit(tree);
+        if (!(tree instanceof VtlParser.ExprContext) || tree instanceof VtlParser.ConstantExprContext
+                || !isConstant(tree)) {
+            return expression;
+        }
+        Object value;
+        try {
+            value = expression.resolve(Map.of());
+        } catch (RuntimeException e) {
+            // Leave the error to the evaluation, the branch might never be evaluated.
+            return expression;
+        }
+        return ConstantVisitor.constant(expression.getType(), value);
+    }
+
+    /**
+     * Checks if a tree only contains constants and operators whose result depends only on their operands.
+     *
+     * @param tree The tree to check.
+     * @return <code>true</code> if the value of the tree can be computed without any context.
+     */
+    boolean isConstant(ParseTree tree) {
+        if (tree instanceof TerminalNode) {
+            return true;
+        }
+        Boolean constant = constantTrees.get(tree);
+        if (constant == null) {
+            constant = FOLDABLE.contains(tree.getClass());
+            for (int i = 0; constant && i < tree.getChildCount(); i++) {
+                constant = isConstant(tree.getChild(i));
+            }
+            constantTrees.put(tree, constant);
+        }
+        return constant;
     }
 
     /**
@@ -193,6 +279,30 @@ public class ExpressionVisitor extends VtlBaseVisitor<ResolvableExpression> {
         return comparisonFunctionsVisitor.visit(ctx.comparisonOperators());
     }
 
+    /**
+     * Visits expressions involving aggregate functions.
+     *
+     * @param ctx The scripting context for the expression.
+     * @return A <code>ResolvableExpression</code> resolving to the result of the aggregate function.
+     * @see AggregateFunctionsVisitor
+     */
+    @Override
+    public ResolvableExpression visitAggregateFunctions(VtlParser.AggregateFunctionsContext ctx) {
+        return aggregateFunctionsVisitor.visit(ctx.aggrOperatorsGrouping());
+    }
+
+    /**
+     * Visits expressions involving join functions.
+     *
+     * @param ctx The scripting context for the expression.
+     * @return A <code>ResolvableExpression</code> resolving to the joined dataset.
+     * @see JoinFunctionsVisitor
+     */
+    @Override
+    public ResolvableExpression visitJoinFunctions(VtlParser.JoinFunctionsContext ctx) {
+        return joinFunctionsVisitor.visit(ctx.joinOperators());
+    }
+
     /**
      * Visits clause expressions.
      *
@@ -7,6 +7,7 @@ import fr.insee.vtl.model.ResolvableExpression;
 import fr.insee.vtl.parser.VtlBaseVisitor;
 import fr.insee.vtl.parser.VtlParser;
 
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -49,6 +50,12 @@ public class IfVisitor extends VtlBaseVisitor<ResolvableExpression> {
             );
         }
 
+        // A constant condition selects the branch once and for all.
+        if (exprVisitor.isConstant(ctx.conditionalExpr)) {
+            Boolean conditionalValue = (Boolean) conditionalExpression.resolve(Map.of());
+            return Boolean.TRUE.equals(conditionalValue) ? thenExpression : elseExpression;
+        }
+
         return ResolvableExpression.withTypeCasting(thenExpression.getType(), (clazz, context) -> {
             Boolean conditionalValue = (Boolean) conditionalExpression.resolve(context);
             return Boolean.TRUE.equals(conditionalValue) ?
@@ -1,6 +1,9 @@
 package fr.insee.vtl.engine.visitors.expression;
 
 import fr.insee.vtl.engine.utils.TypeChecking;
+import fr.insee.vtl.model.BooleanExpression;
+import fr.insee.vtl.model.DoubleExpression;
+import fr.insee.vtl.model.LongExpression;
 import fr.insee.vtl.model.ResolvableExpression;
 import fr.insee.vtl.parser.VtlBaseVisitor;
 import fr.insee.vtl.parser.VtlParser;
@@ -49,28 +52,25 @@ public class UnaryVisitor extends VtlBaseVisitor<ResolvableExpression> {
     private ResolvableExpression handleUnaryPlus(VtlParser.ExprContext exprContext) {
         ResolvableExpression expression = assertNumber(exprVisitor.visit(exprContext), exprContext);
         if (TypeChecking.isLong(expression))
-            return ResolvableExpression.withType(Long.class, context ->
-                    (Long) expression.resolve(context)
-            );
-        return ResolvableExpression.withType(Double.class, context ->
-                (Double) expression.resolve(context)
-        );
+            return LongExpression.wrap(expression);
+        return DoubleExpression.wrap(expression);
     }
 
     private ResolvableExpression handleUnaryMinus(VtlParser.ExprContext exprContext) {
         ResolvableExpression expression = assertNumber(exprVisitor.visit(exprContext), exprContext);
-        if (TypeChecking.isLong(expression))
-            return ResolvableExpression.withType(Long.class, context ->
-                    -((Long) expression.resolve(context))
-            );
-        return ResolvableExpression.withType(Double.class, context ->
-                -((Double) expression.resolve(context))
-        );
+        if (TypeChecking.isLong(expression)) {
+            var longExpression = LongExpression.wrap(expression);
+            return LongExpression.of((context, isNull) -> -longExpression.resolveLong(context, isNull));
+        }
+        var doubleExpression = DoubleExpression.wrap(expression);
+        return DoubleExpression.of((context, isNull) -> -doubleExpression.resolveDouble(context, isNull));
     }
 
     private ResolvableExpression handleUnaryNot(VtlParser.ExprContext exprContext) {
-        ResolvableExpression expression = assertBoolean(exprVisitor.visit(exprContext), exprContext);
-        return ResolvableExpression.withType(Boolean.class, context ->
-                !((Boolean) expression.resolve(context)));
+        var expression = BooleanExpression.wrap(assertBoolean(exprVisitor.visit(exprContext), exprContext));
+        return BooleanExpression.of(context -> {
+            Boolean value = expression.resolve(context);
+            return value == null ? null : !value;
+        });
     }
 }
@@ -7,22 +7,24 @@ import fr.insee.vtl.model.*;
 import fr.insee.vtl.parser.VtlBaseVisitor;
 import fr.insee.vtl.parser.VtlParser;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * <code>VarIdVisitor</code> is the base visitor for variable identifiers.
  */
 public class VarIdVisitor extends VtlBaseVisitor<ResolvableExpression> {
 
-    private final Map<String, Object> context;
+    private final Map<String, ?> context;
 
     /**
      * Constructor taking a scripting context.
      *
      * @param context The context for the visitor.
      */
-    public VarIdVisitor(Map<String, Object> context) {
+    public VarIdVisitor(Map<String, ?> context) {
         this.context = Objects.requireNonNull(context);
     }
 
@@ -43,16 +45,33 @@ public class VarIdVisitor extends VtlBaseVisitor<ResolvableExpression> {
         }
 
         Object value = context.get(variableName);
-        if (value instanceof Dataset) {
-            return DatasetExpression.of((Dataset) value);
-        }
-
         if (value instanceof Dataset.Component) {
             var component = (Dataset.Component) value;
+            // Bind the component to its position when visiting a data structure so that
+            // data points are read by index.
+            var structure = context instanceof DataStructure ? (DataStructure) context : null;
+            var index = structure != null ? structure.indexOf(variableName) : -1;
+            Function<Map<String, Object>, Object> getter = context -> {
+                if (context instanceof DataPoint && ((DataPoint) context).getStructure() == structure) {
+                    return ((DataPoint) context).get(index);
+                }
+                return context.get(component.getName());
+            };
+            // Components of known types are exposed as typed expressions so that
+            // operators can evaluate them without boxing.
+            if (Long.class.equals(component.getType())) {
+                return LongExpression.of(context -> (Long) getter.apply(context));
+            }
+            if (Double.class.equals(component.getType())) {
+                return DoubleExpression.of(context -> (Double) getter.apply(context));
+            }
+            if (Boolean.class.equals(component.getType())) {
+                return BooleanExpression.of(context -> (Boolean) getter.apply(context));
+            }
             return new ResolvableExpression() {
                 @Override
                 public Object resolve(Map<String, Object> context) {
-                    return context.get(component.getName());
+                    return getter.apply(context);
                 }
 
                 @Override
@@ -62,28 +81,63 @@ public class VarIdVisitor extends VtlBaseVisitor<ResolvableExpression> {
             };
         }
 
-        if (value instanceof Integer || value instanceof Long) {
-            return LongExpression.of(((Number) value).longValue());
+        // The context only tells the type of the variable. The value is read from the context the
+        // expression is resolved with so that the expression can be evaluated with other bindings.
+        if (value instanceof Structured) {
+            var structure = ((Structured) value).getDataStructure();
+            return new DatasetExpression() {
+                @Override
+                public Dataset resolve(Map<String, Object> context) {
+                    return (Dataset) context.get(variableName);
+                }
+
+                @Override
+                public List<Dataset.Component> getDataStructure() {
+                    return structure;
+                }
+            };
+        }
+
+        Class<?> type;
+        if (value instanceof TypedExpression) {
+            type = ((TypedExpression) value).getType();
+        } else if (value == null) {
+            type = Object.class;
+        } else {
+            type = value.getClass();
+        }
+
+        if (Integer.class.equals(type) || Long.class.equals(type)) {
+            return LongExpression.of(context -> {
+                var number = (Number) context.get(variableName);
+                return number == null ? null : number.longValue();
+            });
         }
 
-        if (value instanceof Float || value instanceof Double) {
-            return DoubleExpression.of(((Number) value).doubleValue());
+        if (Float.class.equals(type) || Double.class.equals(type)) {
+            return DoubleExpression.of(context -> {
+                var number = (Number) context.get(variableName);
+                return number == null ? null : number.doubleValue();
+            });
         }
 
-        if (value instanceof Boolean) {
-            return BooleanExpression.of((Boolean) value);
+        if (Boolean.class.equals(type)) {
+            return BooleanExpression.of(context -> (Boolean) context.get(variableName));
         }
 
-        if (value instanceof CharSequence) {
-            return StringExpression.of((CharSequence) value);
+        if (CharSequence.class.isAssignableFrom(type)) {
+            return StringExpression.of(context -> {
+                var string = (CharSequence) context.get(variableName);
+                return string == null ? null : string.toString();
+            });
         }
 
-        if (value == null) {
+        if (Object.class.equals(type)) {
             // TODO: Should probably be a static value.
             return new ResolvableExpression() {
                 @Override
                 public Object resolve(Map<String, Object> context) {
-                    return null;
+                    return context.get(variableName);
                 }
 
                 @Override
@@ -93,7 +147,7 @@ public class VarIdVisitor extends VtlBaseVisitor<ResolvableExpression> {
             };
         }
 
-        throw new VtlRuntimeException(new UnsupportedTypeException(ctx, value.getClass()));
+        throw new VtlRuntimeException(new UnsupportedTypeException(ctx, type));
 
     }
 }
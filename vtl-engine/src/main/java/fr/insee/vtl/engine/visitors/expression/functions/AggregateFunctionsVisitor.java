@@ -0,0 +1,202 @@
+package fr.insee.vtl.engine.visitors.expression.functions;
+
+import fr.insee.vtl.engine.VtlScriptEngine;
+import fr.insee.vtl.engine.aggregation.AggregateFunction;
+import fr.insee.vtl.engine.aggregation.HashAggregation;
+import fr.insee.vtl.engine.exceptions.UndefinedVariableException;
+import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.engine.exceptions.VtlScriptException;
+import fr.insee.vtl.engine.visitors.expression.ExpressionVisitor;
+import fr.insee.vtl.model.*;
+import fr.insee.vtl.parser.VtlBaseVisitor;
+import fr.insee.vtl.parser.VtlParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static fr.insee.vtl.engine.utils.TypeChecking.assertNumber;
+
+/**
+ * <code>AggregateFunctionsVisitor</code> is the base visitor for expressions involving aggregate functions.
+ * <p>
+ * Aggregate functions applied to a dataset aggregate all its measures. Aggregate functions applied to components are
+ * only valid in an <code>aggr</code> clause, which resolves them with the helpers of this class.
+ */
+public class AggregateFunctionsVisitor extends VtlBaseVisitor<ResolvableExpression> {
+
+    /**
+     * Name of the measure produced by <code>count</code> on a dataset.
+     */
+    public static final String COUNT_MEASURE = "int_var";
+
+    private final ExpressionVisitor exprVisitor;
+
+    /**
+     * Constructor taking a scripting context.
+     *
+     * @param expressionVisitor The expression visitor.
+     */
+    public AggregateFunctionsVisitor(ExpressionVisitor expressionVisitor) {
+        exprVisitor = Objects.requireNonNull(expressionVisitor);
+    }
+
+    /**
+     * Returns the names of the components grouping the data points of a dataset.
+     *
+     * @param structure The structure of the aggregated dataset.
+     * @param ctx       The grouping clause, or <code>null</code> to aggregate all the data points together.
+     * @return The names of the grouping components, in the order of the structure.
+     * @throws VtlRuntimeException If a component does not exist or the grouping clause is not supported.
+     */
+    public static List<String> groupBy(DataStructure structure, VtlParser.GroupingClauseContext ctx) {
+        if (ctx == null) {
+            return List.of();
+        }
+        if (!(ctx instanceof VtlParser.GroupByOrExceptContext)) {
+            throw new VtlRuntimeException(new VtlScriptException("group all is not supported", ctx));
+        }
+        var groupCtx = (VtlParser.GroupByOrExceptContext) ctx;
+        var names = new ArrayList<String>();
+        for (VtlParser.ComponentIDContext componentCtx : groupCtx.componentID()) {
+            if (!structure.containsKey(componentCtx.getText())) {
+                throw new VtlRuntimeException(new UndefinedVariableException(componentCtx));
+            }
+            names.add(componentCtx.getText());
+        }
+        if (groupCtx.op.getType() == VtlParser.BY) {
+            return structure.getComponents().stream()
+                    .map(Dataset.Component::getName)
+                    .filter(names::contains)
+                    .collect(Collectors.toList());
+        }
+        return structure.getComponents().stream()
+                .filter(component -> component.getRole() == Dataset.Role.IDENTIFIER)
+                .map(Dataset.Component::getName)
+                .filter(name -> !names.contains(name))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the memory budget of the aggregations evaluated in a context.
+     *
+     * @param context The context the aggregation is resolved with, for instance the script bindings.
+     * @return The budget set with the {@link VtlScriptEngine#AGGREGATION_MEMORY} binding, or the default budget.
+     */
+    public static long getMemoryBudget(Map<String, Object> context) {
+        return VtlScriptEngine.getOption(context, VtlScriptEngine.AGGREGATION_MEMORY,
+                HashAggregation.DEFAULT_MEMORY_BUDGET, budget -> budget instanceof Number
+                        ? ((Number) budget).longValue()
+                        : Long.parseLong(budget.toString()));
+    }
+
+    /**
+     * Creates the aggregate function of an aggregate expression.
+     *
+     * @param ctx        The aggregate expression.
+     * @param expression The aggregated expression.
+     * @return The aggregate function.
+     * @throws VtlRuntimeException If the function expects numbers and the expression is not numeric.
+     */
+    public static AggregateFunction aggregateFunction(VtlParser.AggrDatasetContext ctx, ResolvableExpression expression) {
+        var operator = AggregateFunction.Operator.valueOf(ctx.op.getText().toUpperCase());
+        if (operator != AggregateFunction.Operator.COUNT && operator != AggregateFunction.Operator.MIN
+                && operator != AggregateFunction.Operator.MAX) {
+            assertNumber(expression, ctx.expr());
+        }
+        return new AggregateFunction(operator, expression);
+    }
+
+    /**
+     * Creates an expression reading a column of the data points by index.
+     *
+     * @param type  The type of the column.
+     * @param index The position of the column.
+     * @return A typed expression resolving to the value of the column of a {@link DataPoint}.
+     */
+    public static ResolvableExpression column(Class<?> type, int index) {
+        if (Long.class.equals(type)) {
+            return LongExpression.of(context -> (Long) ((DataPoint) context).get(index));
+        }
+        if (Double.class.equals(type)) {
+            return DoubleExpression.of(context -> (Double) ((DataPoint) context).get(index));
+        }
+        if (Boolean.class.equals(type)) {
+            return BooleanExpression.of(context -> (Boolean) ((DataPoint) context).get(index));
+        }
+        return new ResolvableExpression() {
+            @Override
+            public Object resolve(Map<String, Object> context) {
+                return ((DataPoint) context).get(index);
+            }
+
+            @Override
+            public Class<?> getType() {
+                return type;
+            }
+        };
+    }
+
+    /**
+     * Visits an aggregate function applied to a dataset, for instance <code>sum(ds group by id)</code>.
+     * <p>
+     * The function is applied to each measure of the dataset, except <code>count</code> which counts the data points
+     * in a single <code>int_var</code> measure. The result has the grouping components as identifiers.
+     *
+     * @param ctx The scripting context for the expression.
+     * @return A <code>DatasetExpression</code> resolving to the aggregated dataset.
+     */
+    @Override
+    public ResolvableExpression visitAggrDataset(VtlParser.AggrDatasetContext ctx) {
+        var operand = exprVisitor.visit(ctx.expr());
+        if (!(operand instanceof DatasetExpression)) {
+            throw new VtlRuntimeException(new VtlScriptException(
+                    "aggregate functions on components are only allowed in an aggr clause", ctx
+            ));
+        }
+        if (ctx.havingClause() != null) {
+            throw new VtlRuntimeException(new VtlScriptException("having is not supported", ctx.havingClause()));
+        }
+        var dataset = (DatasetExpression) operand;
+        var structure = new DataStructure(dataset.getDataStructure());
+        var keys = groupBy(structure, ctx.groupingClause());
+
+        var functions = new ArrayList<AggregateFunction>();
+        var outputStructure = new ArrayList<Dataset.Component>();
+        for (String key : keys) {
+            var component = structure.get(key);
+            outputStructure.add(new Dataset.Component(key, component.getType(), Dataset.Role.IDENTIFIER));
+        }
+        if (ctx.op.getType() == VtlParser.COUNT) {
+            functions.add(new AggregateFunction(AggregateFunction.Operator.COUNT, LongExpression.of(1L)));
+            outputStructure.add(new Dataset.Component(COUNT_MEASURE, Long.class, Dataset.Role.MEASURE));
+        } else {
+            for (int i = 0; i < structure.size(); i++) {
+                var component = structure.getComponent(i);
+                if (component.getRole() != Dataset.Role.MEASURE) {
+                    continue;
+                }
+                var function = aggregateFunction(ctx, column(component.getType(), i));
+                functions.add(function);
+                outputStructure.add(new Dataset.Component(component.getName(), function.getType(), Dataset.Role.MEASURE));
+            }
+        }
+
+        var aggregation = new HashAggregation(structure, keys, functions);
+        return new DatasetExpression() {
+            @Override
+            public Dataset resolve(Map<String, Object> context) {
+                var source = dataset.resolve(context);
+                var memoryBudget = getMemoryBudget(context);
+                return new LazyDataset(() -> aggregation.aggregate(source.stream(), memoryBudget), outputStructure);
+            }
+
+            @Override
+            public List<Dataset.Component> getDataStructure() {
+                return outputStructure;
+            }
+        };
+    }
+}
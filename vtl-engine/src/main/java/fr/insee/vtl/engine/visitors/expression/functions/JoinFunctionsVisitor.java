@@ -0,0 +1,180 @@
+package fr.insee.vtl.engine.visitors.expression.functions;
+
+import fr.insee.vtl.engine.VtlScriptEngine;
+import fr.insee.vtl.engine.exceptions.InvalidTypeException;
+import fr.insee.vtl.engine.exceptions.VtlRuntimeException;
+import fr.insee.vtl.engine.exceptions.VtlScriptException;
+import fr.insee.vtl.engine.join.Join;
+import fr.insee.vtl.engine.visitors.ClauseVisitor;
+import fr.insee.vtl.engine.visitors.expression.ExpressionVisitor;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.DatasetExpression;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.parser.VtlBaseVisitor;
+import fr.insee.vtl.parser.VtlParser;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * <code>JoinFunctionsVisitor</code> is the base visitor for expressions involving join functions.
+ * <p>
+ * The datasets are joined two by two, from left to right, on their common identifiers or on the components of the
+ * <code>using</code> clause. The clauses of the join body are then applied to the joined data points as they are
+ * produced, in the same pass. The joins are executed in parallel when the {@link VtlScriptEngine#JOIN_PARTITIONS}
+ * binding is set.
+ */
+public class JoinFunctionsVisitor extends VtlBaseVisitor<ResolvableExpression> {
+
+    private final ExpressionVisitor exprVisitor;
+
+    /**
+     * Constructor taking a scripting context.
+     *
+     * @param expressionVisitor The expression visitor.
+     */
+    public JoinFunctionsVisitor(ExpressionVisitor expressionVisitor) {
+        exprVisitor = Objects.requireNonNull(expressionVisitor);
+    }
+
+    /**
+     * Returns the number of partitions of the joins evaluated in a context.
+     *
+     * @param context The context the join is resolved with, for instance the script bindings.
+     * @return The number of partitions set with the {@link VtlScriptEngine#JOIN_PARTITIONS} binding, or
+     * <code>1</code> to join on the calling thread.
+     * @throws IllegalArgumentException If the binding is not a positive integer.
+     */
+    public static int getPartitions(Map<String, Object> context) {
+        return VtlScriptEngine.getOption(context, VtlScriptEngine.JOIN_PARTITIONS, 1, value -> {
+            int partitions = value instanceof Number
+                    ? ((Number) value).intValue()
+                    : Integer.parseInt(value.toString());
+            if (partitions < 1) {
+                throw new IllegalArgumentException("the number of partitions must be positive");
+            }
+            return partitions;
+        });
+    }
+
+    private static Join.Type getType(VtlParser.JoinExprContext ctx) {
+        switch (ctx.joinKeyword.getType()) {
+            case VtlParser.INNER_JOIN:
+                return Join.Type.INNER;
+            case VtlParser.LEFT_JOIN:
+                return Join.Type.LEFT;
+            case VtlParser.FULL_JOIN:
+                return Join.Type.FULL;
+            default:
+                return Join.Type.CROSS;
+        }
+    }
+
+    private static List<String> commonIdentifiers(List<Dataset.Component> left, List<Dataset.Component> right) {
+        var rightIdentifiers = right.stream()
+                .filter(component -> component.getRole() == Dataset.Role.IDENTIFIER)
+                .map(Dataset.Component::getName)
+                .collect(Collectors.toSet());
+        return left.stream()
+                .filter(component -> component.getRole() == Dataset.Role.IDENTIFIER)
+                .map(Dataset.Component::getName)
+                .filter(rightIdentifiers::contains)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Visits a join expression, for instance <code>inner_join(ds1, ds2 filter m1 &gt; 0 keep m1)</code>.
+     *
+     * @param ctx The scripting context for the expression.
+     * @return A <code>DatasetExpression</code> resolving to the joined dataset.
+     */
+    @Override
+    public ResolvableExpression visitJoinExpr(VtlParser.JoinExprContext ctx) {
+        var type = getType(ctx);
+        List<VtlParser.JoinClauseItemContext> items;
+        List<String> using = null;
+        if (ctx.joinClause() != null) {
+            items = ctx.joinClause().joinClauseItem();
+            if (!ctx.joinClause().componentID().isEmpty()) {
+                using = ctx.joinClause().componentID().stream()
+                        .map(ParseTree::getText)
+                        .collect(Collectors.toList());
+            }
+        } else {
+            items = ctx.joinClauseWithoutUsing().joinClauseItem();
+        }
+
+        var result = dataset(items.get(0));
+        for (VtlParser.JoinClauseItemContext item : items.subList(1, items.size())) {
+            var right = dataset(item);
+            List<String> keys;
+            if (type == Join.Type.CROSS) {
+                keys = List.of();
+            } else if (using != null) {
+                keys = using;
+            } else {
+                keys = commonIdentifiers(result.getDataStructure(), right.getDataStructure());
+                if (keys.isEmpty()) {
+                    throw new VtlRuntimeException(new VtlScriptException(
+                            "the datasets have no identifier in common", item
+                    ));
+                }
+            }
+            result = join(type, result, right, keys, item);
+        }
+
+        return body(result, ctx.joinBody());
+    }
+
+    private DatasetExpression dataset(VtlParser.JoinClauseItemContext ctx) {
+        // Aliases are only useful with membership, which is not supported.
+        if (ctx.alias() != null) {
+            throw new VtlRuntimeException(new VtlScriptException("aliases are not supported", ctx.alias()));
+        }
+        var expression = exprVisitor.visit(ctx.expr());
+        if (!(expression instanceof DatasetExpression)) {
+            throw new VtlRuntimeException(new InvalidTypeException(Dataset.class, expression.getType(), ctx.expr()));
+        }
+        return (DatasetExpression) expression;
+    }
+
+    private static DatasetExpression join(Join.Type type, DatasetExpression left, DatasetExpression right,
+                                          List<String> keys, ParseTree tree) {
+        Join join;
+        try {
+            join = new Join(type, left.getDataStructure(), right.getDataStructure(), keys);
+        } catch (IllegalArgumentException iae) {
+            throw new VtlRuntimeException(new VtlScriptException(iae.getMessage(), tree));
+        }
+        return new DatasetExpression() {
+            @Override
+            public Dataset resolve(Map<String, Object> context) {
+                return join.apply(left.resolve(context), right.resolve(context), getPartitions(context));
+            }
+
+            @Override
+            public List<Dataset.Component> getDataStructure() {
+                return join.getDataStructure();
+            }
+        };
+    }
+
+    private static DatasetExpression body(DatasetExpression join, VtlParser.JoinBodyContext ctx) {
+        // Each clause reads the output of the previous one. Consecutive clauses are fused into a single pipeline,
+        // which the joined data points go through as they are produced.
+        var result = join;
+        for (int i = 0; i < ctx.getChildCount(); i++) {
+            var clause = ctx.getChild(i);
+            if (clause instanceof VtlParser.JoinApplyClauseContext) {
+                throw new VtlRuntimeException(new VtlScriptException(
+                        "apply is not supported", (VtlParser.JoinApplyClauseContext) clause
+                ));
+            }
+            result = new ClauseVisitor(result).visit(clause);
+        }
+        return result;
+    }
+}
@@ -6,6 +6,7 @@ import javax.script.ScriptEngineFactory;
  * This module contains the actual VTL engine.
  */
 module fr.insee.vtl.engine {
+    exports fr.insee.vtl.engine;
     exports fr.insee.vtl.engine.exceptions;
     requires java.scripting;
     requires transitive fr.insee.vtl.parser;
@@ -3,13 +3,32 @@ package fr.insee.vtl.engine;
 import fr.insee.vtl.engine.exceptions.InvalidTypeException;
 import fr.insee.vtl.engine.exceptions.UndefinedVariableException;
 import fr.insee.vtl.engine.exceptions.VtlScriptException;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.parser.VtlLexer;
+import fr.insee.vtl.parser.VtlParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.assertj.core.api.Condition;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class VtlScriptEngineTest {
@@ -53,4 +72,171 @@ public class VtlScriptEngineTest {
                 .is(atPosition(0, 1, 16, 3))
                 .hasMessage("invalid type Long, expected (10+10) to be Boolean");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompile() throws ScriptException {
+        var structure = List.of(
+                new Dataset.Component("name", String.class, Dataset.Role.IDENTIFIER),
+                new Dataset.Component("age", Long.class, Dataset.Role.MEASURE)
+        );
+        engine.put("ds1", new InMemoryDataset(List.of(), structure));
+        engine.put("n", 0L);
+
+        CompiledScript script = ((Compilable) engine).compile("ds := ds1[filter age > 10]; res := n + 1;");
+        assertThat(script.getEngine()).isSameAs(engine);
+
+        Bindings first = engine.createBindings();
+        first.put("ds1", new InMemoryDataset(List.of(List.of("Hadrien", 10L), List.of("Nico", 11L)), structure));
+        first.put("n", 1L);
+        assertThat(script.eval(first)).isEqualTo(2L);
+        assertThat(((Dataset) first.get("ds")).getDataPoints()).containsExactly(List.of("Nico", 11L));
+
+        Bindings second = engine.createBindings();
+        second.put("ds1", new InMemoryDataset(List.of(List.of("Franck", 12L)), structure));
+        second.put("n", 41L);
+        assertThat(script.eval(second)).isEqualTo(42L);
+        assertThat(((Dataset) second.get("ds")).getDataPoints()).containsExactly(List.of("Franck", 12L));
+
+        // Bindings with another structure are analyzed again.
+        Bindings third = engine.createBindings();
+        third.put("ds1", new InMemoryDataset(List.of(List.of(13L, "Pierre")), List.of(structure.get(1), structure.get(0))));
+        third.put("n", 1.5D);
+        assertThat(script.eval(third)).isEqualTo(2.5D);
+        assertThat(((Dataset) third.get("ds")).getDataPoints()).containsExactly(List.of(13L, "Pierre"));
+    }
+
+    @Test
+    public void testCache() throws ScriptException {
+        var cache = ((VtlScriptEngine) engine).getCache();
+
+        for (long i = 0; i < 3; i++) {
+            Bindings bindings = engine.createBindings();
+            bindings.put("a", i);
+            assertThat(engine.eval("b := a + 1;", bindings)).isEqualTo(i + 1);
+        }
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(2);
+
+        // Other types of bindings are compiled again.
+        Bindings bindings = engine.createBindings();
+        bindings.put("a", 1.5D);
+        assertThat(engine.eval("b := a + 1;", bindings)).isEqualTo(2.5D);
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+
+        // The variables assigned by a script are not part of the key.
+        var context = engine.getContext();
+        context.setAttribute("c", 1L, ScriptContext.ENGINE_SCOPE);
+        engine.eval("d := c * 2;");
+        engine.eval("d := c * 2;");
+        context.setAttribute("unread", "value", ScriptContext.ENGINE_SCOPE);
+        assertThat(engine.eval("d := c * 2;")).isEqualTo(2L);
+        assertThat(cache.getMisses()).isEqualTo(3);
+        assertThat(cache.getHits()).isEqualTo(4);
+
+        var small = new VtlScriptEngine(engine.getFactory(), 1);
+        small.eval("a := 1;");
+        small.eval("b := 2;");
+        assertThat(small.getCache().size()).isEqualTo(1);
+        assertThat(small.getCache().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSllParsing() throws ScriptException {
+        engine.getContext().setAttribute(VtlScriptEngine.PARSING_MODE, "sll", ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("a := 1 + 2 * 3; b := if a > 5 then \"big\" else \"small\"; c := upper(b) || \"!\";");
+        assertThat(engine.get("a")).isEqualTo(7L);
+        assertThat(engine.get("c")).isEqualTo("BIG!");
+
+        assertThatThrownBy(() -> {
+            engine.eval("var := undefinedVariable + 42;");
+        }).isInstanceOf(UndefinedVariableException.class)
+                .is(atPosition(0, 7, 24));
+    }
+
+    /**
+     * Parser counting the fallbacks to LL, which can be made to bail out in SLL mode as when SLL is not powerful enough.
+     */
+    private static class SpyParser extends VtlParser {
+
+        private final boolean bail;
+        private int fallbacks;
+
+        SpyParser(String script, boolean bail) {
+            super(new CommonTokenStream(new VtlLexer(CharStreams.fromString(script))));
+            this.bail = bail;
+            // The constructor of the parser resets it once.
+            this.fallbacks = 0;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            fallbacks++;
+        }
+
+        @Override
+        public Token consume() {
+            if (bail && getInterpreter().getPredictionMode() == PredictionMode.SLL) {
+                throw new ParseCancellationException();
+            }
+            return super.consume();
+        }
+    }
+
+    private static String treeOf(String script) {
+        var parser = new VtlParser(new CommonTokenStream(new VtlLexer(CharStreams.fromString(script))));
+        return parser.start().toStringTree(parser);
+    }
+
+    @Test
+    public void testSllFallback() {
+        var script = "a := 1 + 2 * 3; b := ds1[filter m1 > 1][calc m3 := m1 * 2];";
+        var err = System.err;
+        var console = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(console));
+        try {
+            // Valid scripts are parsed once, with SLL.
+            var parser = new SpyParser(script, false);
+            var tree = VtlScriptEngine.parse(parser, VtlScriptEngine.ParsingMode.SLL);
+            assertThat(parser.fallbacks).isEqualTo(0);
+            assertThat(parser.getInterpreter().getPredictionMode()).isEqualTo(PredictionMode.SLL);
+            assertThat(tree.toStringTree(parser)).isEqualTo(treeOf(script));
+
+            // When SLL bails out, the script is parsed again with LL into the same tree.
+            parser = new SpyParser(script, true);
+            tree = VtlScriptEngine.parse(parser, VtlScriptEngine.ParsingMode.SLL);
+            assertThat(parser.fallbacks).isEqualTo(1);
+            assertThat(parser.getInterpreter().getPredictionMode()).isEqualTo(PredictionMode.LL);
+            assertThat(parser.getNumberOfSyntaxErrors()).isEqualTo(0);
+            assertThat(tree.toStringTree(parser)).isEqualTo(treeOf(script));
+            assertThat(console.toString()).isEmpty();
+
+            // Syntax errors are only reported by the LL parse.
+            parser = new SpyParser("a := 1 +;", false);
+            VtlScriptEngine.parse(parser, VtlScriptEngine.ParsingMode.SLL);
+            assertThat(parser.fallbacks).isEqualTo(1);
+            assertThat(parser.getNumberOfSyntaxErrors()).isEqualTo(1);
+            assertThat(console.toString().lines()).hasSize(1);
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    @Test
+    public void testOptions() {
+        var bindings = new SimpleBindings();
+        assertThat(VtlScriptEngine.getOption(bindings, VtlScriptEngine.JOIN_PARTITIONS, 1,
+                value -> Integer.parseInt(value.toString()))).isEqualTo(1);
+
+        bindings.put(VtlScriptEngine.JOIN_PARTITIONS, "4");
+        assertThat(VtlScriptEngine.getOption(bindings, VtlScriptEngine.JOIN_PARTITIONS, 1,
+                value -> Integer.parseInt(value.toString()))).isEqualTo(4);
+
+        engine.getContext().setAttribute(VtlScriptEngine.PARSING_MODE, "fast", ScriptContext.ENGINE_SCOPE);
+        assertThatThrownBy(() -> engine.eval("a := 1;"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("invalid value fast for " + VtlScriptEngine.PARSING_MODE);
+    }
+}
@@ -0,0 +1,150 @@
+package fr.insee.vtl.engine.aggregation;
+
+import fr.insee.vtl.model.DataPoint;
+import fr.insee.vtl.model.DataStructure;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.DoubleExpression;
+import fr.insee.vtl.model.LongExpression;
+import fr.insee.vtl.model.ResolvableExpression;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static fr.insee.vtl.model.Dataset.Role;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class HashAggregationTest {
+
+    private static final DataStructure STRUCTURE = new DataStructure(List.of(
+            new Dataset.Component("household", Long.class, Role.IDENTIFIER),
+            new Dataset.Component("municipality", String.class, Role.IDENTIFIER),
+            new Dataset.Component("income", Long.class, Role.MEASURE),
+            new Dataset.Component("weight", Double.class, Role.MEASURE)
+    ));
+
+    private static Stream<List<Object>> dataPoints(long count) {
+        return LongStream.range(0, count).mapToObj(i -> Arrays.asList(
+                i % 10_000,
+                "m" + (i % 7),
+                i % 13 == 0 ? null : i,
+                (i % 5) * 0.5
+        ));
+    }
+
+    private static List<AggregateFunction> functions() {
+        var income = LongExpression.of(context -> (Long) ((DataPoint) context).get(2));
+        var weight = DoubleExpression.of(context -> (Double) ((DataPoint) context).get(3));
+        var municipality = ResolvableExpression.withType(String.class, context -> (String) ((DataPoint) context).get(1));
+        return List.of(
+                new AggregateFunction(AggregateFunction.Operator.COUNT, income),
+                new AggregateFunction(AggregateFunction.Operator.SUM, income),
+                new AggregateFunction(AggregateFunction.Operator.AVG, weight),
+                new AggregateFunction(AggregateFunction.Operator.MEDIAN, income),
+                new AggregateFunction(AggregateFunction.Operator.MIN, income),
+                new AggregateFunction(AggregateFunction.Operator.MAX, weight),
+                new AggregateFunction(AggregateFunction.Operator.MAX, municipality),
+                new AggregateFunction(AggregateFunction.Operator.VAR_SAMP, weight)
+        );
+    }
+
+    private static List<List<Object>> sorted(List<List<Object>> rows) {
+        return rows.stream()
+                .sorted(Comparator.<List<Object>, Long>comparing(row -> (Long) row.get(0)))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSpillToDisk() throws IOException {
+        var directory = Files.createTempDirectory("vtl-aggregation-test");
+        try {
+            var aggregation = new HashAggregation(STRUCTURE, List.of("household"), functions(), directory);
+
+            var expected = aggregation.aggregate(dataPoints(30_000)).collect(Collectors.toList());
+            // A small budget forces several spills and a second level of partitioning.
+            var spilled = aggregation.aggregate(dataPoints(30_000), 16 * 1024).collect(Collectors.toList());
+
+            assertThat(expected).hasSize(10_000);
+            assertThat(spilled).hasSize(10_000);
+            var expectedRows = sorted(expected);
+            var spilledRows = sorted(spilled);
+            for (int i = 0; i < expectedRows.size(); i++) {
+                var expectedRow = expectedRows.get(i);
+                var spilledRow = spilledRows.get(i);
+                assertThat(spilledRow.subList(0, 8)).isEqualTo(expectedRow.subList(0, 8));
+                assertThat((Double) spilledRow.get(8)).isCloseTo((Double) expectedRow.get(8), within(1e-9));
+            }
+
+            // The temporary files are deleted.
+            try (var files = Files.list(directory)) {
+                assertThat(files).isEmpty();
+            }
+        } finally {
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testSpilledGroupsAreStreamed() throws IOException {
+        var directory = Files.createTempDirectory("vtl-aggregation-test");
+        try {
+            var aggregation = new HashAggregation(STRUCTURE, List.of("household"), functions(), directory);
+            var closed = new AtomicBoolean();
+
+            var result = aggregation.aggregate(dataPoints(30_000).onClose(() -> closed.set(true)), 512 * 1024);
+            assertThat(closed).isTrue();
+            long spilled;
+            try (var files = Files.list(directory)) {
+                spilled = files.count();
+            }
+            assertThat(spilled).isGreaterThan(1);
+
+            // Only the partition being read is merged, the other ones stay on disk.
+            var iterator = result.iterator();
+            assertThat(iterator.hasNext()).isTrue();
+            iterator.next();
+            try (var files = Files.list(directory)) {
+                assertThat(files.count()).isEqualTo(spilled - 1);
+            }
+
+            // Closing the stream deletes the partitions that were not read.
+            result.close();
+            try (var files = Files.list(directory)) {
+                assertThat(files).isEmpty();
+            }
+        } finally {
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testCompositeKey() {
+        var aggregation = new HashAggregation(STRUCTURE, List.of("household", "municipality"), functions());
+        var result = aggregation.aggregate(dataPoints(70_000), 64 * 1024).collect(Collectors.toList());
+
+        // 70 000 distinct keys, since 10 000 and 7 are coprime.
+        assertThat(result).hasSize(70_000);
+        assertThat(result.stream().mapToLong(row -> (Long) row.get(2)).sum())
+                .isEqualTo(LongStream.range(0, 70_000).filter(i -> i % 13 != 0).count());
+    }
+
+    @Test
+    public void testNoKey() {
+        var aggregation = new HashAggregation(STRUCTURE, List.of(), functions());
+        var result = aggregation.aggregate(dataPoints(0), 0).collect(Collectors.toList());
+        assertThat(result).containsExactly(Arrays.asList(0L, null, null, null, null, null, null, null));
+
+        result = aggregation.aggregate(dataPoints(3), Long.MAX_VALUE).collect(Collectors.toList());
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0)).containsExactly(2L, 3L, 0.5, 1.5, 1L, 1.0, "m2", 0.25);
+    }
+}
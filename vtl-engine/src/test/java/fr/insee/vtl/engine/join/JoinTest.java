@@ -0,0 +1,218 @@
+package fr.insee.vtl.engine.join;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.LazyDataset;
+import fr.insee.vtl.model.PartitionedDataset;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static fr.insee.vtl.model.Dataset.Role;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JoinTest {
+
+    private static final List<Dataset.Component> POPULATION = List.of(
+            new Dataset.Component("country", String.class, Role.IDENTIFIER),
+            new Dataset.Component("year", Long.class, Role.IDENTIFIER),
+            new Dataset.Component("population", Long.class, Role.MEASURE)
+    );
+
+    private static final List<Dataset.Component> GDP = List.of(
+            new Dataset.Component("country", String.class, Role.IDENTIFIER),
+            new Dataset.Component("year", Long.class, Role.IDENTIFIER),
+            new Dataset.Component("gdp", Double.class, Role.MEASURE)
+    );
+
+    private static final List<String> KEYS = List.of("country", "year");
+
+    /**
+     * Returns a dataset declared as sorted, whose data points can only be streamed.
+     */
+    private static Dataset sorted(List<List<Object>> rows, List<Dataset.Component> structure, List<String> order) {
+        return sorted(rows::stream, structure, order);
+    }
+
+    private static Dataset sorted(Supplier<Stream<List<Object>>> rows,
+                                  List<Dataset.Component> structure, List<String> order) {
+        return new LazyDataset(rows, structure, order) {
+            @Override
+            public List<List<Object>> getDataPoints() {
+                throw new AssertionError("the data points must be streamed");
+            }
+        };
+    }
+
+    private static Dataset population() {
+        return sorted(List.of(
+                List.of("BE", 2019L, 11L),
+                List.of("BE", 2020L, 12L),
+                List.of("FR", 2019L, 67L),
+                List.of("FR", 2020L, 68L)
+        ), POPULATION, KEYS);
+    }
+
+    private static Dataset gdp() {
+        return sorted(List.of(
+                List.of("AT", 2020L, 0.4),
+                List.of("BE", 2020L, 0.5),
+                List.of("FR", 2019L, 2.7),
+                List.of("FR", 2020L, 2.6),
+                List.of("IT", 2019L, 2.0)
+        ), GDP, KEYS);
+    }
+
+    @Test
+    public void testMergeJoin() {
+        var result = new Join(Join.Type.INNER, POPULATION, GDP, KEYS).apply(population(), gdp());
+        assertThat(result.getSortOrder()).containsExactly("country", "year");
+        assertThat(result.getColumnNames()).containsExactly("country", "year", "population", "gdp");
+        assertThat(result.stream().collect(Collectors.toList())).containsExactly(
+                List.of("BE", 2020L, 12L, 0.5),
+                List.of("FR", 2019L, 67L, 2.7),
+                List.of("FR", 2020L, 68L, 2.6)
+        );
+
+        result = new Join(Join.Type.LEFT, POPULATION, GDP, KEYS).apply(population(), gdp());
+        assertThat(result.stream().collect(Collectors.toList())).containsExactly(
+                Arrays.asList("BE", 2019L, 11L, null),
+                List.of("BE", 2020L, 12L, 0.5),
+                List.of("FR", 2019L, 67L, 2.7),
+                List.of("FR", 2020L, 68L, 2.6)
+        );
+
+        result = new Join(Join.Type.FULL, POPULATION, GDP, KEYS).apply(population(), gdp());
+        assertThat(result.stream().collect(Collectors.toList())).containsExactly(
+                Arrays.asList("AT", 2020L, null, 0.4),
+                Arrays.asList("BE", 2019L, 11L, null),
+                List.of("BE", 2020L, 12L, 0.5),
+                List.of("FR", 2019L, 67L, 2.7),
+                List.of("FR", 2020L, 68L, 2.6),
+                Arrays.asList("IT", 2019L, null, 2.0)
+        );
+    }
+
+    @Test
+    public void testMergeJoinFollowsSortOrder() {
+        // The keys are given in another order than the one the datasets are sorted on.
+        var result = new Join(Join.Type.INNER, POPULATION, GDP, List.of("year", "country"))
+                .apply(population(), gdp());
+        assertThat(result.getSortOrder()).containsExactly("country", "year");
+        assertThat(result.stream().count()).isEqualTo(3);
+    }
+
+    @Test
+    public void testMergeJoinDuplicateKeys() {
+        var structure = List.of(
+                new Dataset.Component("country", String.class, Role.IDENTIFIER),
+                new Dataset.Component("region", String.class, Role.IDENTIFIER)
+        );
+        var regions = sorted(List.of(
+                List.of("BE", "Flanders"),
+                List.of("BE", "Wallonia"),
+                List.of("DE", "Bavaria"),
+                List.of("FR", "Brittany")
+        ), structure, List.of("country", "region"));
+
+        var result = new Join(Join.Type.FULL, POPULATION, structure, List.of("country"))
+                .apply(population(), regions);
+        assertThat(result.getSortOrder()).containsExactly("country");
+        assertThat(result.stream().collect(Collectors.toList())).containsExactly(
+                List.of("BE", 2019L, 11L, "Flanders"),
+                List.of("BE", 2019L, 11L, "Wallonia"),
+                List.of("BE", 2020L, 12L, "Flanders"),
+                List.of("BE", 2020L, 12L, "Wallonia"),
+                Arrays.asList("DE", null, null, "Bavaria"),
+                List.of("FR", 2019L, 67L, "Brittany"),
+                List.of("FR", 2020L, 68L, "Brittany")
+        );
+    }
+
+    @Test
+    public void testMergeJoinLargeDatasets() {
+        var structure = List.of(
+                new Dataset.Component("id", Long.class, Role.IDENTIFIER),
+                new Dataset.Component("left_value", Long.class, Role.MEASURE)
+        );
+        var otherStructure = List.of(
+                new Dataset.Component("id", Long.class, Role.IDENTIFIER),
+                new Dataset.Component("right_value", Long.class, Role.MEASURE)
+        );
+        var left = sorted(() -> LongStream.range(0, 1_000_000).mapToObj(i -> List.of(i, i)),
+                structure, List.of("id"));
+        var right = sorted(() -> LongStream.range(0, 1_000_000).filter(i -> i % 3 == 0).mapToObj(i -> List.of(i, -i)),
+                otherStructure, List.of("id"));
+
+        var result = new Join(Join.Type.LEFT, structure, otherStructure, List.of("id")).apply(left, right);
+        assertThat(result.stream().filter(row -> row.get(2) != null).count()).isEqualTo(333_334);
+        assertThat(result.stream().count()).isEqualTo(1_000_000);
+    }
+
+    @Test
+    public void testMergeJoinUnsortedDataset() {
+        var unsorted = sorted(List.of(
+                List.of("FR", 2019L, 2.7),
+                List.of("BE", 2020L, 0.5)
+        ), GDP, KEYS);
+        var result = new Join(Join.Type.INNER, POPULATION, GDP, KEYS).apply(population(), unsorted);
+        assertThatThrownBy(() -> result.stream().count())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("the data points of the right dataset are not sorted");
+    }
+
+    @Test
+    public void testHashJoinKeepsProbeOrder() {
+        var gdp = new InMemoryDataset(gdp().stream().collect(Collectors.toList()), GDP);
+
+        // The right dataset is not sorted, the left one is streamed and its order is kept.
+        var result = new Join(Join.Type.INNER, POPULATION, GDP, KEYS).apply(population(), gdp);
+        assertThat(result.getSortOrder()).containsExactly("country", "year");
+        assertThat(result.stream().count()).isEqualTo(3);
+
+        // Unmatched data points of the table are added at the end.
+        result = new Join(Join.Type.FULL, POPULATION, GDP, KEYS).apply(population(), gdp);
+        assertThat(result.getSortOrder()).isEmpty();
+        assertThat(result.stream().count()).isEqualTo(6);
+    }
+
+    @Test
+    public void testPartitionedJoin() {
+        var structure = List.of(
+                new Dataset.Component("id", Long.class, Role.IDENTIFIER),
+                new Dataset.Component("group", String.class, Role.IDENTIFIER),
+                new Dataset.Component("left_value", Long.class, Role.MEASURE)
+        );
+        var otherStructure = List.of(
+                new Dataset.Component("id", Long.class, Role.IDENTIFIER),
+                new Dataset.Component("group", String.class, Role.IDENTIFIER),
+                new Dataset.Component("right_value", Long.class, Role.MEASURE)
+        );
+        var left = new InMemoryDataset(LongStream.range(0, 100_000)
+                .mapToObj(i -> List.<Object>of(i / 3, "g" + i % 3, i))
+                .collect(Collectors.toList()), structure);
+        var right = new LazyDataset(() -> LongStream.range(0, 50_000)
+                .mapToObj(i -> List.<Object>of(i * 2 / 3, "g" + i % 5, -i)), otherStructure);
+
+        for (Join.Type type : List.of(Join.Type.INNER, Join.Type.LEFT, Join.Type.FULL)) {
+            var join = new Join(type, structure, otherStructure, List.of("id", "group"));
+            var expected = join.apply(left, right).stream().collect(Collectors.toList());
+            var result = join.apply(left, right, 4);
+            assertThat(result).isInstanceOf(PartitionedDataset.class);
+            var partitions = ((PartitionedDataset) result).getPartitions();
+            assertThat(partitions).hasSize(4);
+            // The keys are small numbers and short strings, they are still spread over all the partitions.
+            assertThat(partitions).allSatisfy(partition -> assertThat(partition.getDataPoints()).isNotEmpty());
+            // The data points are unique, they are compared as sets.
+            assertThat(result.getDataPoints()).hasSameSizeAs(expected);
+            assertThat(new HashSet<>(result.getDataPoints())).isEqualTo(new HashSet<>(expected));
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package fr.insee.vtl.engine.visitors;
 
+import fr.insee.vtl.parser.VtlLexer;
+import fr.insee.vtl.parser.VtlParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.script.Bindings;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
@@ -41,4 +46,19 @@ public class AssignmentTest {
         assertThat(bindings.get("f")).isNull();
     }
 
-}
\ No newline at end of file
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testContextAssignmentVisitor() {
+        var context = engine.getContext();
+        context.setAttribute("a", 1L, ScriptContext.ENGINE_SCOPE);
+        var parser = new VtlParser(new CommonTokenStream(new VtlLexer(CharStreams.fromString("b := a + 1; c := b * 2;"))));
+        var visitor = new AssignmentVisitor(context);
+
+        // The statements are evaluated as they are visited.
+        for (VtlParser.StatementContext statement : parser.start().statement()) {
+            visitor.visit(statement);
+        }
+        assertThat(context.getAttribute("b")).isEqualTo(2L);
+        assertThat(context.getAttribute("c")).isEqualTo(4L);
+    }
+}
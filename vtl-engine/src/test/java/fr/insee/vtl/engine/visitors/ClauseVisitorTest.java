@@ -1,7 +1,12 @@
 package fr.insee.vtl.engine.visitors;
 
+import fr.insee.vtl.engine.VtlScriptEngine;
+import fr.insee.vtl.model.ColumnarDataset;
 import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.FilteredDataset;
 import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.LazyDataset;
+import fr.insee.vtl.model.ProjectedDataset;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -9,11 +14,16 @@ import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
 
 import static fr.insee.vtl.model.Dataset.Role;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 public class ClauseVisitorTest {
 
@@ -48,6 +58,11 @@ public class ClauseVisitorTest {
                 Map.of("name", "Nico", "age", 11L, "weight", 10L)
         ));
 
+        // The mappings are copies the caller can modify.
+        var dataPoint = ((Dataset) engine.getContext().getAttribute("ds")).getDataAsMap().get(0);
+        dataPoint.put("age", 12L);
+        assertThat(dataPoint).containsEntry("age", 12L);
+        assertThat(((Dataset) engine.getContext().getAttribute("ds")).getDataAsMap().get(0)).containsEntry("age", 11L);
     }
 
     @Test
@@ -66,6 +81,14 @@ public class ClauseVisitorTest {
         context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
 
         engine.eval("ds := ds1[rename age to wisdom][calc wisdom := wisdom * 2];");
+
+        var result = (Dataset) engine.getContext().getAttribute("ds");
+        assertThat(result.getColumnNames()).containsExactlyInAnyOrder("name", "wisdom", "weight");
+        assertThat(result.getDataAsMap()).containsExactly(
+                Map.of("name", "Hadrien", "wisdom", 20L, "weight", 11L),
+                Map.of("name", "Nico", "wisdom", 22L, "weight", 10L),
+                Map.of("name", "Franck", "wisdom", 24L, "weight", 9L)
+        );
     }
 
     @Test
@@ -155,4 +178,454 @@ public class ClauseVisitorTest {
                 Map.of("name", "Franck", "age", 12L)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testColumnarDataset() throws ScriptException {
+        ColumnarDataset dataset = new ColumnarDataset(
+                List.of(
+                        List.of("Hadrien", 10L, 11.5, true),
+                        List.of("Nico", 11L, 10.0, false),
+                        Arrays.asList("Franck", null, null, null)
+                ),
+                List.of(
+                        new Dataset.Component("name", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("age", Long.class, Role.MEASURE),
+                        new Dataset.Component("weight", Double.class, Role.MEASURE),
+                        new Dataset.Component("adult", Boolean.class, Role.MEASURE)
+                )
+        );
+
+        assertThat(dataset.getLong(1, 1)).isEqualTo(11L);
+        assertThat(dataset.getDouble(0, 2)).isEqualTo(11.5);
+        assertThat(dataset.getBoolean(0, 3)).isTrue();
+        assertThat(dataset.isNull(2, 1)).isTrue();
+        assertThat(dataset.getDataPoints()).containsExactly(
+                List.of("Hadrien", 10L, 11.5, true),
+                List.of("Nico", 11L, 10.0, false),
+                Arrays.asList("Franck", null, null, null)
+        );
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("ds := ds1[filter name <> \"Franck\"][calc heavy := weight > 11.0][drop adult];");
+
+        assertThat(((Dataset) engine.getContext().getAttribute("ds")).getDataAsMap()).containsExactly(
+                Map.of("name", "Hadrien", "age", 10L, "weight", 11.5, "heavy", true),
+                Map.of("name", "Nico", "age", 11L, "weight", 10.0, "heavy", false)
+        );
+    }
+
+    @Test
+    public void testNullPropagation() throws ScriptException {
+        InMemoryDataset dataset = new InMemoryDataset(
+                List.of(
+                        List.of("Hadrien", 10L, 11.5, true),
+                        Arrays.asList("Nico", null, null, null)
+                ),
+                List.of(
+                        new Dataset.Component("name", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("age", Long.class, Role.MEASURE),
+                        new Dataset.Component("weight", Double.class, Role.MEASURE),
+                        new Dataset.Component("adult", Boolean.class, Role.MEASURE)
+                )
+        );
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("ds := ds1[calc older := age + 1, ratio := weight / age, young := not adult, " +
+                "known := adult or true, both := adult and false, big := age > 5];");
+
+        var result = (Dataset) engine.getContext().getAttribute("ds");
+        var columns = result.getColumnNames();
+        assertThat(result.getDataPoints()).hasSize(2);
+        var first = result.getDataPoints().get(0);
+        var second = result.getDataPoints().get(1);
+        assertThat(first.get(columns.indexOf("older"))).isEqualTo(11L);
+        assertThat(first.get(columns.indexOf("ratio"))).isEqualTo(1.15);
+        assertThat(first.get(columns.indexOf("young"))).isEqualTo(false);
+        assertThat(first.get(columns.indexOf("big"))).isEqualTo(true);
+        assertThat(second.get(columns.indexOf("older"))).isNull();
+        assertThat(second.get(columns.indexOf("ratio"))).isNull();
+        assertThat(second.get(columns.indexOf("young"))).isNull();
+        assertThat(second.get(columns.indexOf("known"))).isEqualTo(true);
+        assertThat(second.get(columns.indexOf("both"))).isEqualTo(false);
+        assertThat(second.get(columns.indexOf("big"))).isNull();
+
+        engine.eval("ds := ds1[filter age > 5];");
+        assertThat(((Dataset) engine.getContext().getAttribute("ds")).getDataPoints()).containsExactly(
+                List.of("Hadrien", 10L, 11.5, true)
+        );
+    }
+
+    @Test
+    public void testClausesAreLazy() throws ScriptException {
+        AtomicInteger read = new AtomicInteger();
+        LazyDataset dataset = new LazyDataset(
+                () -> LongStream.range(0, 1_000_000).mapToObj(i -> {
+                    read.incrementAndGet();
+                    return List.<Object>of(i, i % 7);
+                }),
+                List.of(
+                        new Dataset.Component("id", Long.class, Role.IDENTIFIER),
+                        new Dataset.Component("rest", Long.class, Role.MEASURE)
+                )
+        );
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("ds := ds1[filter rest = 0][calc dbl := id * 2][rename dbl to twice][keep id, twice];");
+        assertThat(read.get()).isZero();
+
+        Dataset result = (Dataset) engine.getContext().getAttribute("ds");
+        assertThat(result.stream().limit(2)).containsExactly(
+                List.of(0L, 0L),
+                List.of(7L, 14L)
+        );
+        assertThat(read.get()).isEqualTo(8);
+    }
+
+    @Test
+    public void testClausesAreFused() throws ScriptException {
+        AtomicInteger read = new AtomicInteger();
+        LazyDataset dataset = new LazyDataset(
+                () -> LongStream.range(0, 10).mapToObj(i -> {
+                    read.incrementAndGet();
+                    return List.<Object>of(i, i % 2);
+                }),
+                List.of(
+                        new Dataset.Component("id", Long.class, Role.IDENTIFIER),
+                        new Dataset.Component("rest", Long.class, Role.MEASURE)
+                )
+        );
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("ds := ds1[filter rest = 0][calc dbl := id * 2][filter dbl > 4][drop rest][rename dbl to twice];");
+
+        Dataset result = (Dataset) engine.getContext().getAttribute("ds");
+        assertThat(result.getColumnNames()).containsExactly("id", "twice");
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of(4L, 8L),
+                List.of(6L, 12L),
+                List.of(8L, 16L)
+        );
+
+        // The source is read once for the whole chain.
+        assertThat(read.get()).isEqualTo(10);
+
+        // Nothing is kept in memory, the source is read again each time.
+        assertThat(result.getDataAsMap()).hasSize(3);
+        assertThat(result.stream().count()).isEqualTo(3);
+        assertThat(read.get()).isEqualTo(30);
+    }
+
+    @Test
+    public void testProjectionsAreViews() throws ScriptException {
+        List<Object> row = new ArrayList<>(List.of("Hadrien", 10L, 11L));
+        InMemoryDataset dataset = new InMemoryDataset(
+                List.of(row),
+                List.of(
+                        new Dataset.Component("name", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("age", Long.class, Role.MEASURE),
+                        new Dataset.Component("weight", Long.class, Role.MEASURE)
+                )
+        );
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("ds := ds1[keep name, weight][rename weight to mass][drop name];");
+
+        Dataset result = (Dataset) engine.getContext().getAttribute("ds");
+        assertThat(result).isInstanceOf(ProjectedDataset.class);
+        assertThat(result.getColumnNames()).containsExactly("mass");
+        assertThat(result.getDataPoints()).containsExactly(List.of(11L));
+
+        // The data points are views of the data points of the source.
+        row.set(2, 12L);
+        assertThat(result.getDataPoints()).containsExactly(List.of(12L));
+
+        engine.eval("ds := ds1[rename name to firstName];");
+        result = (Dataset) engine.getContext().getAttribute("ds");
+        assertThat(result.getColumnNames()).containsExactly("firstName", "age", "weight");
+        assertThat(result.getDataPoints()).isSameAs(dataset.getDataPoints());
+    }
+
+    @Test
+    public void testFilterSelection() throws ScriptException {
+        InMemoryDataset dataset = new InMemoryDataset(
+                List.of(
+                        List.of("Hadrien", 10L),
+                        List.of("Nico", 11L),
+                        List.of("Franck", 12L),
+                        List.of("Pierre", 13L)
+                ),
+                List.of(
+                        new Dataset.Component("name", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("age", Long.class, Role.MEASURE)
+                )
+        );
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("ds2 := ds1[filter age > 10][filter name <> \"Pierre\"];");
+        engine.eval("ds3 := ds2[filter age < 12];");
+
+        Dataset result = (Dataset) engine.getContext().getAttribute("ds2");
+        assertThat(result).isInstanceOf(FilteredDataset.class);
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("Nico", 11L),
+                List.of("Franck", 12L)
+        );
+
+        // The selections are intersected and the data points are the ones of the source.
+        result = (Dataset) engine.getContext().getAttribute("ds3");
+        assertThat(result).isInstanceOf(FilteredDataset.class);
+        assertThat(result.getDataPoints()).hasSize(1);
+        assertThat(result.getDataPoints().get(0)).isSameAs(dataset.getDataPoints().get(1));
+    }
+
+    @Test
+    public void testFilterLazySource() throws ScriptException {
+        var streamed = new AtomicInteger();
+        var dataset = new LazyDataset(() -> {
+            streamed.incrementAndGet();
+            return LongStream.range(0, 100).mapToObj(i -> List.<Object>of("n" + i, i));
+        }, List.of(
+                new Dataset.Component("name", String.class, Role.IDENTIFIER),
+                new Dataset.Component("age", Long.class, Role.MEASURE)
+        )) {
+            @Override
+            public List<List<Object>> getDataPoints() {
+                throw new AssertionError("the source must not be materialized");
+            }
+        };
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("ds2 := ds1[filter age >= 10][filter age < 13];");
+        engine.eval("ds3 := ds2[filter age <> 11];");
+
+        // Only the selected data points are collected.
+        Dataset result = (Dataset) engine.getContext().getAttribute("ds2");
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("n10", 10L),
+                List.of("n11", 11L),
+                List.of("n12", 12L)
+        );
+        result = (Dataset) engine.getContext().getAttribute("ds3");
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("n10", 10L),
+                List.of("n12", 12L)
+        );
+        assertThat(((FilteredDataset) result).size()).isEqualTo(2);
+        assertThat(((FilteredDataset) result).size()).isEqualTo(2);
+        assertThat(streamed.get()).isEqualTo(3);
+
+        // A selection vector over the source is applied as it is streamed.
+        var selected = new FilteredDataset(new FilteredDataset(dataset, new int[]{1, 5, 7}),
+                row -> (Long) row.get(1) > 1L);
+        assertThat(selected.getDataPoints()).containsExactly(
+                List.of("n5", 5L),
+                List.of("n7", 7L)
+        );
+        assertThat(streamed.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testCalcOrder() throws ScriptException {
+        InMemoryDataset dataset = new InMemoryDataset(
+                List.of(
+                        List.of("Hadrien", 10L, 11L),
+                        List.of("Nico", 11L, 10L)
+                ),
+                List.of(
+                        new Dataset.Component("name", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("age", Long.class, Role.MEASURE),
+                        new Dataset.Component("weight", Long.class, Role.MEASURE)
+                )
+        );
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("ds := ds1[calc zeta := age + weight, age := age * 10, alpha := name || \"!\"];");
+
+        Dataset result = (Dataset) engine.getContext().getAttribute("ds");
+        assertThat(result.getColumnNames()).containsExactly("name", "age", "weight", "zeta", "alpha");
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("Hadrien", 100L, 11L, 21L, "Hadrien!"),
+                List.of("Nico", 110L, 10L, 21L, "Nico!")
+        );
+    }
+
+    @Test
+    public void testAggregateClause() throws ScriptException {
+        InMemoryDataset dataset = new InMemoryDataset(
+                List.of(
+                        Arrays.asList("Toto", "A", 10L, 1.0),
+                        Arrays.asList("Hadrien", "B", 20L, 2.0),
+                        Arrays.asList("Nico", "A", 30L, null),
+                        Arrays.asList("Franck", "B", null, 4.0),
+                        Arrays.asList("Julien", "A", 50L, 6.0)
+                ),
+                List.of(
+                        new Dataset.Component("name", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("team", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("age", Long.class, Role.MEASURE),
+                        new Dataset.Component("weight", Double.class, Role.MEASURE)
+                )
+        );
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("res := ds1[aggr sumAge := sum(age), avgWeight := avg(weight), countVal := count(age), " +
+                "maxAge := max(age), minWeight := min(weight), medianAge := median(age) group by team];");
+
+        Dataset result = (Dataset) context.getAttribute("res");
+        assertThat(result.getDataStructure()).containsExactly(
+                new Dataset.Component("team", String.class, Role.IDENTIFIER),
+                new Dataset.Component("sumAge", Long.class, Role.MEASURE),
+                new Dataset.Component("avgWeight", Double.class, Role.MEASURE),
+                new Dataset.Component("countVal", Long.class, Role.MEASURE),
+                new Dataset.Component("maxAge", Long.class, Role.MEASURE),
+                new Dataset.Component("minWeight", Double.class, Role.MEASURE),
+                new Dataset.Component("medianAge", Double.class, Role.MEASURE)
+        );
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("A", 90L, 3.5, 3L, 50L, 1.0, 30.0),
+                List.of("B", 20L, 3.0, 1L, 20L, 2.0, 20.0)
+        );
+
+        engine.eval("res := ds1[aggr attribute firstName := min(name), identifier lastName := max(name)];");
+        result = (Dataset) context.getAttribute("res");
+        assertThat(result.getDataStructure()).containsExactly(
+                new Dataset.Component("firstName", String.class, Role.ATTRIBUTE),
+                new Dataset.Component("lastName", String.class, Role.IDENTIFIER)
+        );
+        assertThat(result.getDataPoints()).containsExactly(List.of("Franck", "Toto"));
+    }
+
+    @Test
+    public void testAggregateClauseVariance() throws ScriptException {
+        InMemoryDataset dataset = new InMemoryDataset(
+                List.of(
+                        List.of(1L, 2.0),
+                        List.of(2L, 4.0),
+                        List.of(3L, 4.0),
+                        List.of(4L, 4.0),
+                        List.of(5L, 5.0),
+                        List.of(6L, 5.0),
+                        List.of(7L, 7.0),
+                        List.of(8L, 9.0)
+                ),
+                List.of(
+                        new Dataset.Component("id", Long.class, Role.IDENTIFIER),
+                        new Dataset.Component("weight", Double.class, Role.MEASURE)
+                )
+        );
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("res := ds1[aggr varPop := var_pop(weight), varSamp := var_samp(weight), " +
+                "stddevPop := stddev_pop(weight), stddevSamp := stddev_samp(id)];");
+
+        Dataset result = (Dataset) context.getAttribute("res");
+        var row = result.getDataPoints().get(0);
+        assertThat((Double) row.get(0)).isCloseTo(4.0, within(1e-12));
+        assertThat((Double) row.get(1)).isCloseTo(32.0 / 7, within(1e-12));
+        assertThat((Double) row.get(2)).isCloseTo(2.0, within(1e-12));
+        assertThat((Double) row.get(3)).isCloseTo(Math.sqrt(6.0), within(1e-12));
+
+        engine.eval("res := ds1[filter id = 1][aggr varSamp := var_samp(weight), varPop := var_pop(weight)];");
+        result = (Dataset) context.getAttribute("res");
+        assertThat(result.getDataPoints()).containsExactly(Arrays.asList(null, 0.0));
+    }
+
+    @Test
+    public void testAggregateClauseGroupExceptAndHaving() throws ScriptException {
+        InMemoryDataset dataset = new InMemoryDataset(
+                List.of(
+                        List.of("A", 2019L, 10L),
+                        List.of("A", 2020L, 20L),
+                        List.of("B", 2019L, 5L),
+                        List.of("C", 2020L, 40L)
+                ),
+                List.of(
+                        new Dataset.Component("country", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("year", Long.class, Role.IDENTIFIER),
+                        new Dataset.Component("population", Long.class, Role.MEASURE)
+                )
+        );
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("res := ds1[aggr population := sum(population) group except year " +
+                "having count(population) > 1 or population > 30];");
+
+        Dataset result = (Dataset) context.getAttribute("res");
+        assertThat(result.getColumnNames()).containsExactly("country", "population");
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("A", 30L),
+                List.of("C", 40L)
+        );
+    }
+
+    @Test
+    public void testAggregateClauseStreamsDataset() throws ScriptException {
+        var structure = List.of(
+                new Dataset.Component("id", Long.class, Role.IDENTIFIER),
+                new Dataset.Component("value", Long.class, Role.MEASURE)
+        );
+        AtomicInteger streamed = new AtomicInteger();
+        LazyDataset dataset = new LazyDataset(() -> {
+            streamed.incrementAndGet();
+            return LongStream.range(0, 100_000).mapToObj(i -> List.of(i % 3, i));
+        }, structure);
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("res := ds1[filter value > 10][aggr total_value := sum(value), n := count(value) group by id];");
+
+        Dataset result = (Dataset) context.getAttribute("res");
+        var dataPoints = result.getDataPoints();
+        assertThat(dataPoints).hasSize(3);
+        assertThat(dataPoints.get(0)).containsExactly(2L, 1666649985L, 33330L);
+        assertThat(streamed).hasValue(1);
+    }
+
+    @Test
+    public void testAggregateClauseMemoryBudget() throws ScriptException {
+        var structure = List.of(
+                new Dataset.Component("id", Long.class, Role.IDENTIFIER),
+                new Dataset.Component("value", Long.class, Role.MEASURE)
+        );
+        LazyDataset dataset = new LazyDataset(
+                () -> LongStream.range(0, 20_000).mapToObj(i -> List.of(i % 5_000, i)),
+                structure
+        );
+
+        ScriptContext context = engine.getContext();
+        context.setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+        context.setAttribute(VtlScriptEngine.AGGREGATION_MEMORY, "4096", ScriptContext.ENGINE_SCOPE);
+
+        engine.eval("res := ds1[aggr sumValue := sum(value), n := count(value) group by id];");
+
+        Dataset result = (Dataset) context.getAttribute("res");
+        assertThat(result.getDataPoints()).hasSize(5_000);
+        assertThat(result.getDataPoints()).allSatisfy(row -> {
+            var id = (Long) row.get(0);
+            assertThat(row).containsExactly(id, 4 * id + 30_000L, 4L);
+        });
+    }
+}
@@ -56,6 +56,18 @@ public class ComparisonExprTest {
         assertThat((Boolean) context.getAttribute("lt1")).isTrue();
     }
 
+    @Test
+    public void testDoubleEquality() throws ScriptException {
+        ScriptContext context = engine.getContext();
+        // Numbers are compared as with Double.equals.
+        engine.eval("nan := 0.0 / 0.0 = 0.0 / 0.0;");
+        assertThat((Boolean) context.getAttribute("nan")).isTrue();
+        engine.eval("zero := 0.0 = -0.0;");
+        assertThat((Boolean) context.getAttribute("zero")).isFalse();
+        engine.eval("zero := 0.0 <> -0.0;");
+        assertThat((Boolean) context.getAttribute("zero")).isTrue();
+    }
+
     @Test
     public void testComparisonExceptions() {
         assertThatThrownBy(() -> {
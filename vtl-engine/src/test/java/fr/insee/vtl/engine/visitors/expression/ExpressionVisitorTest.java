@@ -0,0 +1,112 @@
+package fr.insee.vtl.engine.visitors.expression;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.ResolvableExpression;
+import fr.insee.vtl.parser.VtlLexer;
+import fr.insee.vtl.parser.VtlParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static fr.insee.vtl.model.Dataset.Role;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpressionVisitorTest {
+
+    private ScriptEngine engine;
+
+    private static VtlParser.ExprContext parse(String expression) {
+        VtlLexer lexer = new VtlLexer(CharStreams.fromString(expression));
+        VtlParser parser = new VtlParser(new CommonTokenStream(lexer));
+        return parser.expr();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        engine = new ScriptEngineManager().getEngineByName("vtl");
+    }
+
+    @Test
+    public void testConstantFolding() {
+        ExpressionVisitor visitor = new ExpressionVisitor(Map.of("a", 1L));
+
+        assertThat(visitor.isConstant(parse("(1 + 2) * 3 > 8 and \"a\" || \"b\" = \"ab\""))).isTrue();
+        assertThat(visitor.isConstant(parse("upper(substr(\"abc\", 1, 2))"))).isTrue();
+        assertThat(visitor.isConstant(parse("if true then 1 else 2"))).isTrue();
+        assertThat(visitor.isConstant(parse("1 + a"))).isFalse();
+        assertThat(visitor.isConstant(parse("if 1 > 2 then a else 2"))).isFalse();
+
+        // A folded expression does not read its context anymore.
+        ResolvableExpression expression = visitor.visit(parse("(1 + 2) * 3 > 8 and \"a\" || \"b\" = \"ab\""));
+        assertThat(expression.getType()).isEqualTo(Boolean.class);
+        assertThat(expression.resolve(null)).isEqualTo(true);
+
+        expression = visitor.visit(parse("if 1 > 2 then 0 else a"));
+        assertThat(expression.resolve(Map.of("a", 3L))).isEqualTo(3L);
+    }
+
+    @Test
+    public void testOperandsAreEvaluatedOnce() {
+        ExpressionVisitor visitor = new ExpressionVisitor(Map.of("a", 1L, "b", 1L));
+        var reads = new AtomicInteger();
+        var context = new HashMap<String, Object>(Map.of("a", 3L, "b", 2L)) {
+            @Override
+            public Object get(Object key) {
+                reads.incrementAndGet();
+                return super.get(key);
+            }
+        };
+
+        ResolvableExpression expression = visitor.visit(parse(
+                "if a > 0 then (if b > 1 then (a + b) * (a - b) else a) + 1 else -a"));
+        assertThat(expression.resolve(context)).isEqualTo(6L);
+        assertThat(reads.get()).isEqualTo(6);
+
+        // The number of reads grows linearly with the depth of the expression.
+        var nested = "a";
+        for (int i = 0; i < 20; i++) {
+            nested = "(if a > " + i + " then " + nested + " + 1 else -1)";
+        }
+        reads.set(0);
+        expression = visitor.visit(parse(nested));
+        assertThat(expression.resolve(context)).isEqualTo(-1L);
+        assertThat(reads.get()).isEqualTo(1);
+
+        context.put("a", 100L);
+        reads.set(0);
+        assertThat(expression.resolve(context)).isEqualTo(120L);
+        assertThat(reads.get()).isEqualTo(21);
+    }
+
+    @Test
+    public void testConstantFoldingInClause() throws ScriptException {
+        InMemoryDataset dataset = new InMemoryDataset(
+                List.of(
+                        List.of("Hadrien", 10L),
+                        List.of("Nico", 11L)
+                ),
+                List.of(
+                        new Dataset.Component("name", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("age", Long.class, Role.MEASURE)
+                )
+        );
+        engine.put("ds1", dataset);
+
+        engine.eval("ds := ds1[filter age > 5 * 2][calc label := name || \" is \" || \"old\"];");
+
+        var result = (Dataset) engine.get("ds");
+        assertThat(result.getDataAsMap()).containsExactly(
+                Map.of("name", "Nico", "age", 11L, "label", "Nico is old")
+        );
+    }
+}
@@ -0,0 +1,116 @@
+package fr.insee.vtl.engine.visitors.expression.functions;
+
+import fr.insee.vtl.engine.exceptions.InvalidTypeException;
+import fr.insee.vtl.engine.exceptions.VtlScriptException;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.util.Arrays;
+import java.util.List;
+
+import static fr.insee.vtl.model.Dataset.Role;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AggregateFunctionsTest {
+
+    private ScriptEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        engine = new ScriptEngineManager().getEngineByName("vtl");
+        var dataset = new InMemoryDataset(
+                List.of(
+                        Arrays.asList("A", 1L, 10L, 1.5),
+                        Arrays.asList("A", 2L, 20L, null),
+                        Arrays.asList("B", 1L, 5L, 2.5),
+                        Arrays.asList("B", 2L, null, 3.5)
+                ),
+                List.of(
+                        new Dataset.Component("country", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("year", Long.class, Role.IDENTIFIER),
+                        new Dataset.Component("population", Long.class, Role.MEASURE),
+                        new Dataset.Component("rate", Double.class, Role.MEASURE)
+                )
+        );
+        engine.getContext().setAttribute("ds1", dataset, ScriptContext.ENGINE_SCOPE);
+    }
+
+    private Dataset eval(String script) throws ScriptException {
+        engine.eval("res := " + script + ";");
+        return (Dataset) engine.getContext().getAttribute("res");
+    }
+
+    @Test
+    public void testAggregateDataset() throws ScriptException {
+        var result = eval("sum(ds1 group by country)");
+        assertThat(result.getDataStructure()).containsExactly(
+                new Dataset.Component("country", String.class, Role.IDENTIFIER),
+                new Dataset.Component("population", Long.class, Role.MEASURE),
+                new Dataset.Component("rate", Double.class, Role.MEASURE)
+        );
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("A", 30L, 1.5),
+                List.of("B", 5L, 6.0)
+        );
+
+        result = eval("avg(ds1 group except year)");
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("A", 15.0, 1.5),
+                List.of("B", 5.0, 3.0)
+        );
+
+        result = eval("max(ds1)");
+        assertThat(result.getColumnNames()).containsExactly("population", "rate");
+        assertThat(result.getDataPoints()).containsExactly(List.of(20L, 3.5));
+    }
+
+    @Test
+    public void testCountDataset() throws ScriptException {
+        var result = eval("count(ds1 group by year)");
+        assertThat(result.getDataStructure()).containsExactly(
+                new Dataset.Component("year", Long.class, Role.IDENTIFIER),
+                new Dataset.Component("int_var", Long.class, Role.MEASURE)
+        );
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of(1L, 2L),
+                List.of(2L, 2L)
+        );
+    }
+
+    @Test
+    public void testAggregateEmptyGroups() throws ScriptException {
+        var result = eval("sum(ds1[filter year > 2])");
+        assertThat(result.getDataPoints()).containsExactly(Arrays.asList(null, null));
+
+        result = eval("sum(ds1[filter year > 2] group by country)");
+        assertThat(result.getDataPoints()).isEmpty();
+    }
+
+    @Test
+    public void testAggregateErrors() {
+        engine.getContext().setAttribute("ds2", new InMemoryDataset(
+                List.of(List.of(1L, "a")),
+                List.of(
+                        new Dataset.Component("id", Long.class, Role.IDENTIFIER),
+                        new Dataset.Component("label", String.class, Role.MEASURE)
+                )
+        ), ScriptContext.ENGINE_SCOPE);
+
+        assertThatThrownBy(() -> eval("sum(ds2)"))
+                .isInstanceOf(InvalidTypeException.class)
+                .hasMessageStartingWith("invalid type String");
+        assertThatThrownBy(() -> eval("sum(ds1 group by unknown)"))
+                .isInstanceOf(VtlScriptException.class)
+                .hasMessage("undefined variable unknown");
+        assertThatThrownBy(() -> eval("sum(1)"))
+                .isInstanceOf(VtlScriptException.class)
+                .hasMessage("aggregate functions on components are only allowed in an aggr clause");
+    }
+}
@@ -0,0 +1,251 @@
+package fr.insee.vtl.engine.visitors.expression.functions;
+
+import fr.insee.vtl.engine.VtlScriptEngine;
+import fr.insee.vtl.engine.exceptions.InvalidTypeException;
+import fr.insee.vtl.engine.exceptions.VtlScriptException;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.LazyDataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static fr.insee.vtl.model.Dataset.Role;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JoinFunctionsTest {
+
+    private ScriptEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        engine = new ScriptEngineManager().getEngineByName("vtl");
+        var context = engine.getContext();
+        context.setAttribute("ds1", new InMemoryDataset(
+                List.of(
+                        List.of("A", 1L),
+                        List.of("B", 2L),
+                        List.of("C", 3L)
+                ),
+                List.of(
+                        new Dataset.Component("id", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("m1", Long.class, Role.MEASURE)
+                )
+        ), ScriptContext.ENGINE_SCOPE);
+        context.setAttribute("ds2", new InMemoryDataset(
+                List.of(
+                        List.of("A", 10L),
+                        List.of("B", 20L),
+                        List.of("D", 40L)
+                ),
+                List.of(
+                        new Dataset.Component("id", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("m2", Long.class, Role.MEASURE)
+                )
+        ), ScriptContext.ENGINE_SCOPE);
+        context.setAttribute("ds3", new InMemoryDataset(
+                List.of(
+                        List.of("x", true),
+                        List.of("y", false)
+                ),
+                List.of(
+                        new Dataset.Component("code", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("flag", Boolean.class, Role.MEASURE)
+                )
+        ), ScriptContext.ENGINE_SCOPE);
+    }
+
+    private Dataset eval(String script) throws ScriptException {
+        engine.eval("res := " + script + ";");
+        return (Dataset) engine.getContext().getAttribute("res");
+    }
+
+    @Test
+    public void testInnerJoin() throws ScriptException {
+        var result = eval("inner_join(ds1, ds2)");
+        assertThat(result.getDataStructure()).containsExactly(
+                new Dataset.Component("id", String.class, Role.IDENTIFIER),
+                new Dataset.Component("m1", Long.class, Role.MEASURE),
+                new Dataset.Component("m2", Long.class, Role.MEASURE)
+        );
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("A", 1L, 10L),
+                List.of("B", 2L, 20L)
+        );
+
+        result = eval("inner_join(ds1, ds2 using id)");
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("A", 1L, 10L),
+                List.of("B", 2L, 20L)
+        );
+    }
+
+    @Test
+    public void testLeftAndFullJoin() throws ScriptException {
+        var result = eval("left_join(ds1, ds2)");
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("A", 1L, 10L),
+                List.of("B", 2L, 20L),
+                Arrays.asList("C", 3L, null)
+        );
+
+        result = eval("left_join(ds2, ds1)");
+        assertThat(result.getColumnNames()).containsExactly("id", "m2", "m1");
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("A", 10L, 1L),
+                List.of("B", 20L, 2L),
+                Arrays.asList("D", 40L, null)
+        );
+
+        result = eval("full_join(ds1, ds2)");
+        assertThat(result.getDataPoints()).containsExactlyInAnyOrder(
+                List.of("A", 1L, 10L),
+                List.of("B", 2L, 20L),
+                Arrays.asList("C", 3L, null),
+                Arrays.asList("D", null, 40L)
+        );
+    }
+
+    @Test
+    public void testCrossJoin() throws ScriptException {
+        var result = eval("cross_join(ds1, ds3)");
+        assertThat(result.getColumnNames()).containsExactly("id", "m1", "code", "flag");
+        assertThat(result.getDataPoints()).containsExactlyInAnyOrder(
+                List.of("A", 1L, "x", true),
+                List.of("A", 1L, "y", false),
+                List.of("B", 2L, "x", true),
+                List.of("B", 2L, "y", false),
+                List.of("C", 3L, "x", true),
+                List.of("C", 3L, "y", false)
+        );
+    }
+
+    @Test
+    public void testJoinBody() throws ScriptException {
+        var result = eval("inner_join(ds1, ds2 filter m1 > 1 calc s := m1 + m2 keep id, s rename s to amount)");
+        assertThat(result.getDataStructure()).containsExactly(
+                new Dataset.Component("id", String.class, Role.IDENTIFIER),
+                new Dataset.Component("amount", Long.class, Role.MEASURE)
+        );
+        assertThat(result.getDataPoints()).containsExactly(List.of("B", 22L));
+
+        // Data points for which the condition is null are dropped.
+        result = eval("left_join(ds1, ds2 filter m2 > 0)");
+        assertThat(result.getDataPoints()).containsExactly(
+                List.of("A", 1L, 10L),
+                List.of("B", 2L, 20L)
+        );
+    }
+
+    @Test
+    public void testJoinSeveralDatasets() throws ScriptException {
+        engine.getContext().setAttribute("ds4", new InMemoryDataset(
+                List.of(List.of("B", "b")),
+                List.of(
+                        new Dataset.Component("id", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("label", String.class, Role.MEASURE)
+                )
+        ), ScriptContext.ENGINE_SCOPE);
+
+        var result = eval("left_join(ds1, ds2, ds4)");
+        assertThat(result.getColumnNames()).containsExactly("id", "m1", "m2", "label");
+        assertThat(result.getDataPoints()).containsExactly(
+                Arrays.asList("A", 1L, 10L, null),
+                List.of("B", 2L, 20L, "b"),
+                Arrays.asList("C", 3L, null, null)
+        );
+    }
+
+    @Test
+    public void testJoinBuildsOnSmallerSide() throws ScriptException {
+        var structure = List.of(
+                new Dataset.Component("id", String.class, Role.IDENTIFIER),
+                new Dataset.Component("m3", Long.class, Role.MEASURE)
+        );
+        var streamed = new AtomicInteger();
+        var collected = new AtomicInteger();
+        var large = new LazyDataset(() -> {
+            streamed.incrementAndGet();
+            return LongStream.range(0, 1000).mapToObj(i -> List.<Object>of(i % 2 == 0 ? "A" : "Z", i));
+        }, structure) {
+            @Override
+            public List<List<Object>> getDataPoints() {
+                collected.incrementAndGet();
+                return stream().collect(Collectors.toList());
+            }
+        };
+        engine.getContext().setAttribute("large", large, ScriptContext.ENGINE_SCOPE);
+
+        // The size of the lazy dataset is unknown, the table is built on the in-memory dataset.
+        var result = eval("inner_join(large, ds1 calc n := m3 + m1)");
+        assertThat(result.getDataPoints()).hasSize(500);
+        assertThat(streamed.get()).isEqualTo(1);
+        assertThat(collected.get()).isEqualTo(0);
+
+        result = eval("left_join(ds1, large)");
+        assertThat(result.getDataPoints()).hasSize(502);
+        assertThat(result.getDataPoints().get(0)).isEqualTo(List.of("A", 1L, 0L));
+        assertThat(collected.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPartitionedJoin() throws ScriptException {
+        engine.getContext().setAttribute(VtlScriptEngine.JOIN_PARTITIONS, 3, ScriptContext.ENGINE_SCOPE);
+
+        var result = eval("full_join(ds1, ds2 filter m1 > 1 or m2 > 30)");
+        assertThat(result.getDataPoints()).containsExactlyInAnyOrder(
+                List.of("B", 2L, 20L),
+                Arrays.asList("C", 3L, null),
+                Arrays.asList("D", null, 40L)
+        );
+
+        engine.getContext().setAttribute(VtlScriptEngine.JOIN_PARTITIONS, "many", ScriptContext.ENGINE_SCOPE);
+        assertThatThrownBy(() -> eval("inner_join(ds1, ds2)"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("invalid value many for " + VtlScriptEngine.JOIN_PARTITIONS);
+        engine.getContext().setAttribute(VtlScriptEngine.JOIN_PARTITIONS, 0, ScriptContext.ENGINE_SCOPE);
+        assertThatThrownBy(() -> eval("inner_join(ds1, ds2)"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("invalid value 0 for " + VtlScriptEngine.JOIN_PARTITIONS);
+    }
+
+    @Test
+    public void testJoinExceptions() {
+        engine.getContext().setAttribute("ds5", new InMemoryDataset(
+                List.of(List.of("A", 1L)),
+                List.of(
+                        new Dataset.Component("id", String.class, Role.IDENTIFIER),
+                        new Dataset.Component("m1", Long.class, Role.MEASURE)
+                )
+        ), ScriptContext.ENGINE_SCOPE);
+
+        assertThatThrownBy(() -> eval("inner_join(ds1, ds5)"))
+                .isInstanceOf(VtlScriptException.class)
+                .hasMessage("component m1 is present in both datasets, it must be a key or be renamed");
+        assertThatThrownBy(() -> eval("inner_join(ds1, ds3)"))
+                .isInstanceOf(VtlScriptException.class)
+                .hasMessage("the datasets have no identifier in common");
+        assertThatThrownBy(() -> eval("inner_join(ds1, ds2 using unknown)"))
+                .isInstanceOf(VtlScriptException.class)
+                .hasMessage("key unknown is not present in both datasets");
+        assertThatThrownBy(() -> eval("inner_join(ds1 as a, ds2 as b)"))
+                .isInstanceOf(VtlScriptException.class)
+                .hasMessage("aliases are not supported");
+        assertThatThrownBy(() -> eval("inner_join(ds1, ds2 apply m1 + m2)"))
+                .isInstanceOf(VtlScriptException.class)
+                .hasMessage("apply is not supported");
+        assertThatThrownBy(() -> eval("inner_join(ds1, 1)"))
+                .isInstanceOf(InvalidTypeException.class)
+                .hasMessageStartingWith("invalid type Long");
+    }
+}
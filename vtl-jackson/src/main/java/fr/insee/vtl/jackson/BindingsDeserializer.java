@@ -4,14 +4,30 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import fr.insee.vtl.model.Dataset;
 
 import javax.script.Bindings;
 import javax.script.SimpleBindings;
 import java.io.IOException;
 
+/**
+ * Deserializes bindings, mapping names to datasets or scalar values.
+ * <p>
+ * When the {@link #LAZY_DATASETS} attribute is <code>true</code>, the datasets are kept as buffered tokens and only
+ * their structure is read. Their data points are deserialized when they are first read, so that the datasets a
+ * script does not use are never deserialized:
+ * <pre>
+ * mapper.readerFor(Bindings.class).withAttribute(BindingsDeserializer.LAZY_DATASETS, true).readValue(json);
+ * </pre>
+ */
 public class BindingsDeserializer extends StdDeserializer<Bindings> {
 
+    /**
+     * Name of the deserialization attribute enabling the lazy deserialization of datasets.
+     */
+    public static final String LAZY_DATASETS = "$vtl.jackson.lazy_datasets";
+
     protected BindingsDeserializer() {
         super(Bindings.class);
     }
@@ -25,10 +41,14 @@ public class BindingsDeserializer extends StdDeserializer<Bindings> {
             ctxt.handleUnexpectedToken(Bindings.class, p);
         }
 
+        var lazy = Boolean.TRUE.equals(ctxt.getAttribute(LAZY_DATASETS));
         while (p.nextToken() == JsonToken.FIELD_NAME) {
             var name = p.currentName();
             var value = p.nextValue();
-            if (value.isStructStart()) {
+            if (value.isStructStart() && lazy) {
+                // Dataset, only reading the structure.
+                bindings.put(name, bufferDataset(p, ctxt));
+            } else if (value.isStructStart()) {
                 // Dataset
                 bindings.put(name, ctxt.readValue(p, Dataset.class));
             } else {
@@ -39,4 +59,15 @@ public class BindingsDeserializer extends StdDeserializer<Bindings> {
 
         return bindings;
     }
+
+    private Dataset bufferDataset(JsonParser p, DeserializationContext ctxt) throws IOException {
+        var buffer = new TokenBuffer(p, ctxt);
+        buffer.copyCurrentStructure(p);
+
+        try (var parser = buffer.asParser(p.getCodec())) {
+            parser.nextToken();
+            var structure = DatasetDeserializer.deserializeStructure(parser, ctxt);
+            return new BufferedDataset(p.getCodec(), buffer, structure);
+        }
+    }
 }
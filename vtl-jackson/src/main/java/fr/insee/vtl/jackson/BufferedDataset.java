@@ -0,0 +1,67 @@
+package fr.insee.vtl.jackson;
+
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import fr.insee.vtl.model.Dataset;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * <code>Dataset</code> kept as buffered JSON tokens, whose data points are only deserialized when they are first read.
+ */
+class BufferedDataset implements Dataset {
+
+    private final ObjectCodec codec;
+    private final List<Component> structure;
+    private TokenBuffer buffer;
+    private volatile Dataset dataset;
+
+    /**
+     * Constructor taking the buffered tokens of a dataset.
+     *
+     * @param codec     The codec deserializing the dataset.
+     * @param buffer    The tokens of the dataset object.
+     * @param structure The structure of the dataset, read from the tokens.
+     */
+    BufferedDataset(ObjectCodec codec, TokenBuffer buffer, List<Component> structure) {
+        this.codec = Objects.requireNonNull(codec);
+        this.buffer = Objects.requireNonNull(buffer);
+        this.structure = Objects.requireNonNull(structure);
+    }
+
+    private Dataset dataset() {
+        if (dataset == null) {
+            synchronized (this) {
+                if (dataset == null) {
+                    try (var parser = buffer.asParser(codec)) {
+                        dataset = codec.readValue(parser, Dataset.class);
+                    } catch (IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+                    // The tokens are not needed anymore.
+                    buffer = null;
+                }
+            }
+        }
+        return dataset;
+    }
+
+    @Override
+    public List<List<Object>> getDataPoints() {
+        return dataset().getDataPoints();
+    }
+
+    @Override
+    public Stream<List<Object>> stream() {
+        return dataset().stream();
+    }
+
+    @Override
+    public List<Component> getDataStructure() {
+        return structure;
+    }
+}
@@ -3,17 +3,17 @@ package fr.insee.vtl.jackson;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import fr.insee.vtl.model.ColumnarDataset;
 import fr.insee.vtl.model.Dataset;
-import fr.insee.vtl.model.InMemoryDataset;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public class DatasetDeserializer extends StdDeserializer<Dataset> {
 
@@ -34,11 +34,43 @@ public class DatasetDeserializer extends StdDeserializer<Dataset> {
         }
 
         List<Dataset.Component> structure = deserializeStructure(p, ctxt);
-        List<List<Object>> dataPoints = deserializeDataPoints(p, ctxt, structure);
-        return new InMemoryDataset(dataPoints, structure);
+        return deserializeDataPoints(p, ctxt, structure);
     }
 
-    private List<List<Object>> deserializeDataPoints(JsonParser p, DeserializationContext ctxt, List<Dataset.Component> components) throws IOException {
+    private ColumnarDataset deserializeDataPoints(JsonParser p, DeserializationContext ctxt, List<Dataset.Component> components) throws IOException {
+        startDataPoints(p, ctxt);
+
+        var deserializers = pointDeserializers(components);
+        var dataset = new ColumnarDataset.Builder(components);
+        while (deserializeRow(p, ctxt, deserializers, dataset)) {
+            dataset.endRow();
+        }
+        endDataset(p, ctxt);
+
+        return dataset.build();
+    }
+
+    /**
+     * Reads the end of the dataset object, once all the data points have been read.
+     */
+    static void endDataset(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.nextToken() != JsonToken.END_OBJECT) {
+            ctxt.handleUnexpectedToken(Dataset.class, p);
+        }
+    }
+
+    /**
+     * Creates a context to deserialize the content of a parser outside of the mapper.
+     */
+    static DeserializationContext createContext(ObjectMapper mapper, JsonParser p) {
+        return ((DefaultDeserializationContext) mapper.getDeserializationContext())
+                .createInstance(mapper.getDeserializationConfig(), p, mapper.getInjectableValues());
+    }
+
+    /**
+     * Reads the name of the data points field and the start of the array.
+     */
+    static void startDataPoints(JsonParser p, DeserializationContext ctxt) throws IOException {
         var fieldName = p.nextFieldName();
         if (!DATAPOINT_NAMES.contains(fieldName)) {
             ctxt.handleUnexpectedToken(Dataset.class, p);
@@ -49,32 +81,46 @@ public class DatasetDeserializer extends StdDeserializer<Dataset> {
         if (token != JsonToken.START_ARRAY) {
             ctxt.handleUnexpectedToken(Dataset.class, p);
         }
+    }
 
-        // Create a list of functions for each type. This require the structure
-        // to be before the data.
-        List<PointDeserializer> deserializers = components.stream()
-                .map(PointDeserializer::new)
-                .collect(Collectors.toList());
-
-        List<List<Object>> dataPoints = new ArrayList<>();
-        while (p.nextToken() == JsonToken.START_ARRAY) {
-            var row = new ArrayList<>();
-            for (var deserializer : deserializers) {
-                p.nextValue();
-                row.add(deserializer.deserialize(p, ctxt));
-            }
+    /**
+     * Creates a reader for each component, writing the values straight into the columns
+     * of the dataset. This require the structure to be before the data.
+     */
+    static PointDeserializer[] pointDeserializers(List<Dataset.Component> components) {
+        var deserializers = new PointDeserializer[components.size()];
+        for (int i = 0; i < deserializers.length; i++) {
+            deserializers[i] = new PointDeserializer(components.get(i), i);
+        }
+        return deserializers;
+    }
 
-            // row > component size.
-            if (p.nextToken() != JsonToken.END_ARRAY) {
-                ctxt.handleUnexpectedToken(Dataset.class, p);
-            }
-            dataPoints.add(row);
+    /**
+     * Reads the next data point in the current row of the builder.
+     *
+     * @return <code>false</code> if there are no more data points.
+     */
+    static boolean deserializeRow(JsonParser p, DeserializationContext ctxt, PointDeserializer[] deserializers,
+                                  ColumnarDataset.Builder dataset) throws IOException {
+        if (p.nextToken() != JsonToken.START_ARRAY) {
+            return false;
+        }
+        for (var deserializer : deserializers) {
+            p.nextValue();
+            deserializer.deserialize(p, ctxt, dataset);
         }
 
-        return dataPoints;
+        // row > component size.
+        if (p.nextToken() != JsonToken.END_ARRAY) {
+            ctxt.handleUnexpectedToken(Dataset.class, p);
+        }
+        return true;
     }
 
-    private List<Dataset.Component> deserializeStructure(JsonParser p, DeserializationContext ctxt) throws IOException {
+    /**
+     * Reads the name of the structure field and the components.
+     */
+    static List<Dataset.Component> deserializeStructure(JsonParser p, DeserializationContext ctxt) throws IOException {
         var fieldName = p.nextFieldName();
         if (!STRUCTURE_NAMES.contains(fieldName)) {
             ctxt.handleUnexpectedToken(Dataset.class, p);
@@ -86,20 +132,68 @@ public class DatasetDeserializer extends StdDeserializer<Dataset> {
         return ctxt.readValue(p, listOfComponentType);
     }
 
-    private static class PointDeserializer {
+    /**
+     * Reads the values of a component, with the accessor of the parser matching the type of the component. Tokens of
+     * another kind are converted by the deserialization context.
+     */
+    static class PointDeserializer {
 
         private final Dataset.Component component;
+        private final int column;
+        private final ValueReader reader;
 
-        PointDeserializer(Dataset.Component component) {
+        PointDeserializer(Dataset.Component component, int column) {
             this.component = Objects.requireNonNull(component);
+            this.column = column;
+            this.reader = reader(component.getType());
         }
 
-        Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        private static ValueReader reader(Class<?> type) {
+            if (Long.class.equals(type)) {
+                return (p, ctxt, dataset, column) -> {
+                    if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+                        dataset.setLong(column, p.getLongValue());
+                    } else {
+                        dataset.set(column, ctxt.readValue(p, Long.class));
+                    }
+                };
+            }
+            if (Double.class.equals(type)) {
+                return (p, ctxt, dataset, column) -> {
+                    if (p.hasToken(JsonToken.VALUE_NUMBER_FLOAT) || p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+                        dataset.setDouble(column, p.getDoubleValue());
+                    } else {
+                        dataset.set(column, ctxt.readValue(p, Double.class));
+                    }
+                };
+            }
+            if (Boolean.class.equals(type)) {
+                return (p, ctxt, dataset, column) -> {
+                    if (p.hasToken(JsonToken.VALUE_TRUE) || p.hasToken(JsonToken.VALUE_FALSE)) {
+                        dataset.setBoolean(column, p.getBooleanValue());
+                    } else {
+                        dataset.set(column, ctxt.readValue(p, Boolean.class));
+                    }
+                };
+            }
+            if (String.class.equals(type)) {
+                return (p, ctxt, dataset, column) -> {
+                    if (p.hasToken(JsonToken.VALUE_STRING)) {
+                        dataset.set(column, p.getText());
+                    } else {
+                        dataset.set(column, ctxt.readValue(p, String.class));
+                    }
+                };
+            }
+            return (p, ctxt, dataset, column) -> dataset.set(column, ctxt.readValue(p, type));
+        }
+
+        void deserialize(JsonParser p, DeserializationContext ctxt, ColumnarDataset.Builder dataset) throws IOException {
             try {
-                if (p.currentToken() == JsonToken.VALUE_NULL) {
-                    return null;
+                if (p.hasToken(JsonToken.VALUE_NULL)) {
+                    dataset.set(column, null);
                 } else {
-                    return ctxt.readValue(p, component.getType());
+                    reader.read(p, ctxt, dataset, column);
                 }
             } catch (IOException ioe) {
                 throw MismatchedInputException.from(
@@ -110,4 +204,9 @@ public class DatasetDeserializer extends StdDeserializer<Dataset> {
             }
         }
     }
+
+    @FunctionalInterface
+    private interface ValueReader {
+        void read(JsonParser p, DeserializationContext ctxt, ColumnarDataset.Builder dataset, int column) throws IOException;
+    }
 }
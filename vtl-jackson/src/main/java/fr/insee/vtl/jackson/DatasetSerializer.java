@@ -3,10 +3,21 @@ package fr.insee.vtl.jackson;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import fr.insee.vtl.model.ColumnarDataset;
 import fr.insee.vtl.model.Dataset;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * Serializes datasets one data point after the other.
+ * <p>
+ * The data points are read from {@link Dataset#stream()}, so lazy datasets are written without being materialized,
+ * and each value is written with the method of the generator matching the type of its component. Columnar datasets
+ * are read column by column, without boxing their values.
+ */
 public class DatasetSerializer extends StdSerializer<Dataset> {
     protected DatasetSerializer() {
         super(Dataset.class);
@@ -14,9 +25,131 @@ public class DatasetSerializer extends StdSerializer<Dataset> {
 
     @Override
     public void serialize(Dataset value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        var structure = value.getDataStructure();
         gen.writeStartObject();
-        gen.writeObjectField("dataStructure", value.getDataStructure());
-        gen.writeObjectField("dataPoints", value.getDataPoints());
+        gen.writeObjectField("dataStructure", structure);
+        gen.writeArrayFieldStart("dataPoints");
+        serializeDataPoints(value, gen, provider, false);
+        gen.writeEndArray();
         gen.writeEndObject();
     }
+
+    /**
+     * Writes the data points of a dataset as arrays, optionally followed by a new line.
+     */
+    static void serializeDataPoints(Dataset value, JsonGenerator gen, SerializerProvider provider,
+                                    boolean newLines) throws IOException {
+        if (value instanceof ColumnarDataset) {
+            serializeColumns((ColumnarDataset) value, gen, provider, newLines);
+        } else {
+            serializeRows(value, gen, provider, newLines);
+        }
+    }
+
+    private static void serializeRows(Dataset value, JsonGenerator gen, SerializerProvider provider,
+                                      boolean newLines) throws IOException {
+        var writers = writers(value.getDataStructure());
+        try (Stream<List<Object>> dataPoints = value.stream()) {
+            Iterator<List<Object>> iterator = dataPoints.iterator();
+            while (iterator.hasNext()) {
+                var row = iterator.next();
+                gen.writeStartArray();
+                for (int i = 0; i < writers.length; i++) {
+                    var cell = row.get(i);
+                    if (cell == null) {
+                        gen.writeNull();
+                    } else {
+                        writers[i].write(cell, gen, provider);
+                    }
+                }
+                gen.writeEndArray();
+                if (newLines) {
+                    gen.writeRaw('\n');
+                }
+            }
+        }
+    }
+
+    private static void serializeColumns(ColumnarDataset value, JsonGenerator gen, SerializerProvider provider,
+                                         boolean newLines) throws IOException {
+        var structure = value.getDataStructure();
+        var types = new Class<?>[structure.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = structure.get(i).getType();
+        }
+        var writers = writers(structure);
+        for (int row = 0; row < value.size(); row++) {
+            gen.writeStartArray();
+            for (int col = 0; col < types.length; col++) {
+                if (value.isNull(row, col)) {
+                    gen.writeNull();
+                } else if (Long.class.equals(types[col])) {
+                    gen.writeNumber(value.getLong(row, col));
+                } else if (Double.class.equals(types[col])) {
+                    gen.writeNumber(value.getDouble(row, col));
+                } else if (Boolean.class.equals(types[col])) {
+                    gen.writeBoolean(value.getBoolean(row, col));
+                } else {
+                    writers[col].write(value.get(row, col), gen, provider);
+                }
+            }
+            gen.writeEndArray();
+            if (newLines) {
+                gen.writeRaw('\n');
+            }
+        }
+    }
+
+    private static ValueWriter[] writers(List<Dataset.Component> structure) {
+        var writers = new ValueWriter[structure.size()];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = writer(structure.get(i).getType());
+        }
+        return writers;
+    }
+
+    private static ValueWriter writer(Class<?> type) {
+        if (Long.class.equals(type)) {
+            return (value, gen, provider) -> {
+                if (value instanceof Number) {
+                    gen.writeNumber(((Number) value).longValue());
+                } else {
+                    provider.defaultSerializeValue(value, gen);
+                }
+            };
+        }
+        if (Double.class.equals(type)) {
+            return (value, gen, provider) -> {
+                if (value instanceof Number) {
+                    gen.writeNumber(((Number) value).doubleValue());
+                } else {
+                    provider.defaultSerializeValue(value, gen);
+                }
+            };
+        }
+        if (Boolean.class.equals(type)) {
+            return (value, gen, provider) -> {
+                if (value instanceof Boolean) {
+                    gen.writeBoolean((Boolean) value);
+                } else {
+                    provider.defaultSerializeValue(value, gen);
+                }
+            };
+        }
+        if (String.class.equals(type)) {
+            return (value, gen, provider) -> {
+                if (value instanceof String) {
+                    gen.writeString((String) value);
+                } else {
+                    provider.defaultSerializeValue(value, gen);
+                }
+            };
+        }
+        return (value, gen, provider) -> provider.defaultSerializeValue(value, gen);
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter {
+        void write(Object value, JsonGenerator gen, SerializerProvider provider) throws IOException;
+    }
 }
@@ -0,0 +1,198 @@
+package fr.insee.vtl.jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.insee.vtl.model.ColumnarDataset;
+import fr.insee.vtl.model.Dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <code>Dataset</code> reading its data points lazily from an open JSON parser.
+ * <p>
+ * The structure is read when the dataset is created. The data points are then read in batches of
+ * <code>batchSize</code> rows as the dataset is streamed, so that a script filtering or aggregating a large input only
+ * keeps the current batch in memory. The data points can only be streamed once, unless they are materialized first
+ * with {@link #getDataPoints()}.
+ */
+public class JsonDataset implements Dataset, Closeable {
+
+    /**
+     * Default number of data points read at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final JsonParser parser;
+    private final DeserializationContext context;
+    private final List<Component> structure;
+    private final DatasetDeserializer.PointDeserializer[] deserializers;
+    private final int batchSize;
+    private boolean started;
+    private boolean finished;
+    private volatile List<List<Object>> dataPoints;
+
+    /**
+     * Constructor reading a dataset from an input stream.
+     *
+     * @param mapper      The mapper, with the {@link TrevasModule} registered.
+     * @param inputStream The JSON input.
+     * @throws IOException If the structure of the dataset cannot be read.
+     */
+    public JsonDataset(ObjectMapper mapper, InputStream inputStream) throws IOException {
+        this(mapper, mapper.getFactory().createParser(inputStream), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor reading a dataset from an open parser, positioned before or on the start of the dataset object.
+     *
+     * @param mapper    The mapper, with the {@link TrevasModule} registered.
+     * @param parser    The parser.
+     * @param batchSize The number of data points read at once.
+     * @throws IOException If the structure of the dataset cannot be read.
+     */
+    public JsonDataset(ObjectMapper mapper, JsonParser parser, int batchSize) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("invalid batch size " + batchSize);
+        }
+        this.parser = Objects.requireNonNull(parser);
+        this.batchSize = batchSize;
+        this.context = DatasetDeserializer.createContext(mapper, parser);
+
+        // Json is an object.
+        if (!parser.hasCurrentToken()) {
+            parser.nextToken();
+        }
+        if (!parser.hasToken(JsonToken.START_OBJECT)) {
+            context.handleUnexpectedToken(Dataset.class, parser);
+        }
+
+        this.structure = DatasetDeserializer.deserializeStructure(parser, context);
+        this.deserializers = DatasetDeserializer.pointDeserializers(structure);
+        DatasetDeserializer.startDataPoints(parser, context);
+    }
+
+    /**
+     * Reads the next batch of data points.
+     *
+     * @return A dataset containing the next data points, or <code>null</code> if all the data points have been read.
+     * @throws IOException If the data points cannot be read.
+     */
+    public synchronized ColumnarDataset nextBatch() throws IOException {
+        started = true;
+        if (finished) {
+            return null;
+        }
+        var batch = new ColumnarDataset.Builder(structure);
+        while (batch.size() < batchSize) {
+            if (!DatasetDeserializer.deserializeRow(parser, context, deserializers, batch)) {
+                finished = true;
+                DatasetDeserializer.endDataset(parser, context);
+                break;
+            }
+            batch.endRow();
+        }
+        return batch.size() > 0 ? batch.build() : null;
+    }
+
+    /**
+     * Returns the remaining data points as a sequential stream of batches.
+     *
+     * @return A stream of datasets, each containing at most <code>batchSize</code> data points.
+     * @throws IllegalStateException If the data points have already been read.
+     */
+    public synchronized Stream<ColumnarDataset> batches() {
+        if (started) {
+            throw new IllegalStateException("the data points have already been read");
+        }
+        started = true;
+        var iterator = new Iterator<ColumnarDataset>() {
+
+            private ColumnarDataset next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = nextBatch();
+                    } catch (IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public ColumnarDataset next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var batch = next;
+                next = null;
+                return batch;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Returns the data points as a stream, reading them from the parser unless they have been materialized.
+     *
+     * @return The data contained in the dataset as a stream of list of objects.
+     * @throws IllegalStateException If the data points have already been read and were not materialized.
+     */
+    @Override
+    public Stream<List<Object>> stream() {
+        var cached = dataPoints;
+        if (cached != null) {
+            return cached.stream();
+        }
+        return batches().flatMap(batch -> batch.getDataPoints().stream());
+    }
+
+    /**
+     * Reads all the data points in memory.
+     *
+     * @return The data contained in the dataset as a list of list of objects.
+     * @throws IllegalStateException If the data points have already been streamed.
+     */
+    @Override
+    public List<List<Object>> getDataPoints() {
+        if (dataPoints == null) {
+            synchronized (this) {
+                if (dataPoints == null) {
+                    dataPoints = stream().collect(Collectors.toUnmodifiableList());
+                }
+            }
+        }
+        return dataPoints;
+    }
+
+    @Override
+    public List<Component> getDataStructure() {
+        return structure;
+    }
+
+    /**
+     * Closes the underlying parser.
+     *
+     * @throws IOException If the parser cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,152 @@
+package fr.insee.vtl.jackson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import fr.insee.vtl.model.ColumnarDataset;
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.PartitionedDataset;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reads datasets written as newline-delimited JSON by the {@link NdjsonDatasetWriter}.
+ * <p>
+ * The file is memory-mapped and split into chunks of about <code>chunkSize</code> bytes, ending at a new line. The
+ * chunks are parsed in parallel on a fork-join pool, each one into a partition of the resulting dataset, so that the
+ * data points keep the order of the file.
+ */
+public class NdjsonDatasetReader {
+
+    /**
+     * Default size of the chunks parsed in parallel, in bytes.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private static final int SCAN_SIZE = 8 * 1024;
+
+    private final ObjectMapper mapper;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * Constructor taking a mapper, parsing on the common fork-join pool.
+     *
+     * @param mapper The mapper, with the {@link TrevasModule} registered.
+     */
+    public NdjsonDatasetReader(ObjectMapper mapper) {
+        this(mapper, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor taking a mapper, the pool parsing the chunks and their size.
+     *
+     * @param mapper    The mapper, with the {@link TrevasModule} registered.
+     * @param pool      The pool parsing the chunks.
+     * @param chunkSize The approximate size of the chunks, in bytes.
+     */
+    public NdjsonDatasetReader(ObjectMapper mapper, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("invalid chunk size " + chunkSize);
+        }
+        this.mapper = Objects.requireNonNull(mapper);
+        this.pool = Objects.requireNonNull(pool);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads a dataset from a file.
+     *
+     * @param path The path of the file.
+     * @return A dataset with a partition per chunk of the file.
+     * @throws IOException If the file cannot be read or is not valid.
+     */
+    public PartitionedDataset read(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+
+            // The first line is the structure.
+            var headerEnd = nextLine(channel, 0);
+            var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerEnd);
+            List<Dataset.Component> structure;
+            try (var parser = mapper.getFactory().createParser(new ByteBufferBackedInputStream(header))) {
+                parser.nextToken();
+                var context = DatasetDeserializer.createContext(mapper, parser);
+                var listOfComponentType = context.getTypeFactory()
+                        .constructCollectionLikeType(List.class, Dataset.Component.class);
+                structure = context.readValue(parser, listOfComponentType);
+            }
+
+            List<Callable<ColumnarDataset>> chunks = new ArrayList<>();
+            for (long start = headerEnd; start < size; ) {
+                var end = start + chunkSize >= size ? size : nextLine(channel, start + chunkSize - 1);
+                var chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                chunks.add(() -> readChunk(chunk, structure));
+                start = end;
+            }
+
+            List<ColumnarDataset> partitions = new ArrayList<>(chunks.size());
+            for (Future<ColumnarDataset> partition : pool.invokeAll(chunks)) {
+                partitions.add(partition.get());
+            }
+            return new PartitionedDataset(partitions, structure);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while reading " + path, ie);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof IOException) {
+                throw (IOException) ee.getCause();
+            }
+            if (ee.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ee.getCause()).getCause();
+            }
+            throw new IOException("failed to read " + path, ee.getCause());
+        }
+    }
+
+    /**
+     * Returns the position following the first new line at or after the given position, or the size of the file.
+     */
+    private static long nextLine(FileChannel channel, long position) throws IOException {
+        var buffer = ByteBuffer.allocate(SCAN_SIZE);
+        while (true) {
+            buffer.clear();
+            var read = channel.read(buffer, position);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private ColumnarDataset readChunk(ByteBuffer chunk, List<Dataset.Component> structure) throws IOException {
+        try (var parser = mapper.getFactory().createParser(new ByteBufferBackedInputStream(chunk))) {
+            var context = DatasetDeserializer.createContext(mapper, parser);
+            var deserializers = DatasetDeserializer.pointDeserializers(structure);
+            var dataset = new ColumnarDataset.Builder(structure);
+            while (DatasetDeserializer.deserializeRow(parser, context, deserializers, dataset)) {
+                dataset.endRow();
+            }
+            if (parser.hasCurrentToken()) {
+                context.handleUnexpectedToken(Dataset.class, parser);
+            }
+            return dataset.build();
+        }
+    }
+}
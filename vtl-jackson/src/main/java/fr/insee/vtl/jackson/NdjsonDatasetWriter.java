@@ -0,0 +1,48 @@
+package fr.insee.vtl.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.insee.vtl.model.Dataset;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * Writes datasets as newline-delimited JSON.
+ * <p>
+ * The first line is the structure of the dataset, as an array of components. Each following line is a data point,
+ * as an array of values. The data points are streamed, so lazy datasets are written without being materialized.
+ *
+ * @see NdjsonDatasetReader
+ */
+public class NdjsonDatasetWriter {
+
+    private final ObjectMapper mapper;
+
+    /**
+     * Constructor taking a mapper.
+     *
+     * @param mapper The mapper, with the {@link TrevasModule} registered.
+     */
+    public NdjsonDatasetWriter(ObjectMapper mapper) {
+        this.mapper = Objects.requireNonNull(mapper);
+    }
+
+    /**
+     * Writes a dataset. The output stream is left open.
+     *
+     * @param dataset The dataset to write.
+     * @param output  The output stream.
+     * @throws IOException If the dataset cannot be written.
+     */
+    public void write(Dataset dataset, OutputStream output) throws IOException {
+        try (var gen = mapper.getFactory().createGenerator(output)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.setRootValueSeparator(null);
+            gen.writeObject(dataset.getDataStructure());
+            gen.writeRaw('\n');
+            DatasetSerializer.serializeDataPoints(dataset, gen, mapper.getSerializerProviderInstance(), true);
+        }
+    }
+}
@@ -5,8 +5,11 @@ import org.junit.jupiter.api.Test;
 
 import javax.script.Bindings;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class BindingsDeserializerTest extends AbstractMapperTest {
 
@@ -27,4 +30,41 @@ public class BindingsDeserializerTest extends AbstractMapperTest {
 
         assertThat(bindings.get("dataset")).isInstanceOf(Dataset.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBindingsAfterDataset() throws IOException {
+        var json = "{\"ds\": {\"structure\": [{\"name\": \"id\", \"type\": \"INTEGER\", \"role\": \"IDENTIFIER\"}]," +
+                "\"data\": [[1], [2]]}, \"after\": \"value\"}";
+
+        var bindings = mapper.readValue(json, Bindings.class);
+
+        assertThat(bindings).containsEntry("after", "value");
+        assertThat(((Dataset) bindings.get("ds")).getDataPoints()).containsExactly(List.of(1L), List.of(2L));
+    }
+
+    @Test
+    public void testLazyDatasets() throws IOException {
+        var reader = mapper.readerFor(Bindings.class).withAttribute(BindingsDeserializer.LAZY_DATASETS, true);
+
+        var eager = mapper.readValue(getClass().getResourceAsStream("/bindings.json"), Bindings.class);
+        Bindings lazy = reader.readValue(getClass().getResourceAsStream("/bindings.json"));
+
+        assertThat(lazy).containsOnlyKeys(eager.keySet());
+        assertThat(lazy).containsEntry("string", "string");
+        var eagerDataset = (Dataset) eager.get("dataset");
+        var lazyDataset = (Dataset) lazy.get("dataset");
+        assertThat(lazyDataset.getDataStructure()).isEqualTo(eagerDataset.getDataStructure());
+        assertThat(lazyDataset.getDataPoints()).isEqualTo(eagerDataset.getDataPoints());
+
+        // The data points are only deserialized when they are read.
+        var json = "{\"ds\": {\"structure\": [{\"name\": \"id\", \"type\": \"INTEGER\", \"role\": \"IDENTIFIER\"}]," +
+                "\"data\": [[\"invalid\"]]}, \"after\": 1}";
+        Bindings invalid = reader.readValue(json);
+        assertThat(invalid).containsEntry("after", 1);
+        var dataset = (Dataset) invalid.get("ds");
+        assertThat(dataset.getDataStructure()).containsExactly(
+                new Dataset.Component("id", Long.class, Dataset.Role.IDENTIFIER)
+        );
+        assertThatThrownBy(dataset::getDataPoints).isInstanceOf(UncheckedIOException.class);
+    }
+}
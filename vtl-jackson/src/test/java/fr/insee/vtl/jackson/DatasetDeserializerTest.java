@@ -1,5 +1,7 @@
 package fr.insee.vtl.jackson;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
+import fr.insee.vtl.model.ColumnarDataset;
 import fr.insee.vtl.model.Dataset;
 import org.junit.jupiter.api.Test;
 
@@ -8,6 +10,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class DatasetDeserializerTest extends AbstractMapperTest {
 
@@ -36,5 +39,50 @@ public class DatasetDeserializerTest extends AbstractMapperTest {
                 nulls
         );
 
+        // The data points are stored by column, their values can be replaced.
+        assertThat(dataset).isInstanceOf(ColumnarDataset.class);
+        dataset.getDataPoints().get(3).set(2, 1L);
+        dataset.getDataPoints().get(0).set(2, null);
+        assertThat(dataset.getDataPoints().get(3)).containsExactly(null, null, 1L, null);
+        assertThat(dataset.getDataPoints().get(0)).containsExactly("Europe", "France", null, 643.801);
+        assertThatThrownBy(() -> dataset.getDataPoints().get(0).add("extra"))
+                .isInstanceOf(UnsupportedOperationException.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDeserializeTypes() throws IOException {
+        var json = new StringBuilder("{\"structure\": [" +
+                "{\"name\": \"id\", \"type\": \"INTEGER\", \"role\": \"IDENTIFIER\"}," +
+                "{\"name\": \"value\", \"type\": \"NUMBER\", \"role\": \"MEASURE\"}," +
+                "{\"name\": \"flag\", \"type\": \"BOOLEAN\", \"role\": \"MEASURE\"}," +
+                "{\"name\": \"label\", \"type\": \"STRING\", \"role\": \"MEASURE\"}" +
+                "], \"data\": [");
+        // Tokens of other kinds are converted.
+        json.append("[\"1\", 2, \"true\", 3],");
+        json.append("[null, null, null, null]");
+        for (int i = 0; i < 100; i++) {
+            json.append(", [").append(i).append(", ").append(i).append(".5, ").append(i % 2 == 0)
+                    .append(", \"label").append(i).append("\"]");
+        }
+        json.append("]}");
+
+        var dataset = mapper.readValue(json.toString(), Dataset.class);
+
+        var dataPoints = dataset.getDataPoints();
+        assertThat(dataPoints).hasSize(102);
+        assertThat(dataPoints.get(0)).containsExactly(1L, 2.0, true, "3");
+        assertThat(dataPoints.get(1)).containsExactly(null, null, null, null);
+        assertThat(dataPoints.get(101)).containsExactly(99L, 99.5, false, "label99");
+    }
+
+    @Test
+    public void testDeserializeInvalidValue() {
+        var json = "{\"structure\": [" +
+                "{\"name\": \"id\", \"type\": \"INTEGER\", \"role\": \"IDENTIFIER\"}" +
+                "], \"data\": [[\"one\"]]}";
+
+        assertThatThrownBy(() -> mapper.readValue(json, Dataset.class))
+                .isInstanceOf(JsonMappingException.class)
+                .hasMessageStartingWith("failed to deserialize column id");
+    }
+}
@@ -2,11 +2,16 @@ package fr.insee.vtl.jackson;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.LazyDataset;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -33,4 +38,41 @@ public class DatasetSerializerTest extends AbstractMapperTest {
 
         assertThat(serialized).isEqualTo(expected);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRowSerialization() throws IOException {
+        var structure = List.of(
+                new Dataset.Component("id", Long.class, Dataset.Role.IDENTIFIER),
+                new Dataset.Component("value", Double.class, Dataset.Role.MEASURE),
+                new Dataset.Component("flag", Boolean.class, Dataset.Role.MEASURE),
+                new Dataset.Component("label", String.class, Dataset.Role.MEASURE)
+        );
+        var rows = new InMemoryDataset(List.of(
+                Arrays.asList(1L, 1.5, true, "a"),
+                Arrays.asList(null, null, null, null),
+                Arrays.asList(3, 3, false, "c")
+        ), structure);
+
+        var json = mapper.readValue(mapper.writeValueAsBytes(rows), JsonNode.class);
+        assertThat(json.get("dataPoints").toString())
+                .isEqualTo("[[1,1.5,true,\"a\"],[null,null,null,null],[3,3.0,false,\"c\"]]");
+
+        // Columnar datasets are written the same way.
+        var columns = mapper.readValue(mapper.writeValueAsBytes(rows), Dataset.class);
+        assertThat(mapper.readValue(mapper.writeValueAsBytes(columns), JsonNode.class)).isEqualTo(json);
+    }
+
+    @Test
+    public void testLazyDatasetIsStreamed() throws IOException {
+        var structure = List.of(new Dataset.Component("id", Long.class, Dataset.Role.IDENTIFIER));
+        var lazy = new LazyDataset(() -> Stream.iterate(0L, i -> i < 3, i -> i + 1).map(List::of), structure) {
+            @Override
+            public List<List<Object>> getDataPoints() {
+                throw new AssertionError("the dataset should not be materialized");
+            }
+        };
+
+        var json = mapper.readValue(mapper.writeValueAsBytes(lazy), JsonNode.class);
+        assertThat(json.get("dataPoints").toString()).isEqualTo("[[0],[1],[2]]");
+    }
+}
@@ -0,0 +1,64 @@
+package fr.insee.vtl.jackson;
+
+import fr.insee.vtl.model.Dataset;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonDatasetTest extends AbstractMapperTest {
+
+    private static List<Object> nulls() {
+        List<Object> nulls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nulls.add(null);
+        }
+        return nulls;
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        try (var dataset = new JsonDataset(mapper, getClass().getResourceAsStream("/dataset.json"))) {
+            assertThat(dataset.getDataStructure()).containsExactly(
+                    new Dataset.Component("CONTINENT", String.class, Dataset.Role.IDENTIFIER),
+                    new Dataset.Component("COUNTRY", String.class, Dataset.Role.IDENTIFIER),
+                    new Dataset.Component("POP", Long.class, Dataset.Role.MEASURE),
+                    new Dataset.Component("AREA", Double.class, Dataset.Role.MEASURE)
+            );
+
+            assertThat(dataset.stream().collect(Collectors.toList())).containsExactly(
+                    List.of("Europe", "France", 67063703L, 643.801),
+                    List.of("Europe", "Norway", 5372191L, 385.203),
+                    List.of("Oceania", "New Zealand", 4917000L, 268.021),
+                    nulls()
+            );
+
+            // The parser is consumed.
+            assertThatThrownBy(dataset::stream).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    public void testBatches() throws IOException {
+        var parser = mapper.getFactory().createParser(getClass().getResourceAsStream("/dataset.json"));
+        try (var dataset = new JsonDataset(mapper, parser, 3)) {
+            var sizes = dataset.batches().map(batch -> batch.size()).collect(Collectors.toList());
+            assertThat(sizes).containsExactly(3, 1);
+        }
+    }
+
+    @Test
+    public void testMaterialize() throws IOException {
+        try (var dataset = new JsonDataset(mapper, getClass().getResourceAsStream("/dataset.json"))) {
+            assertThat(dataset.getDataPoints()).hasSize(4);
+            // Materialized data points can be streamed several times.
+            assertThat(dataset.stream().count()).isEqualTo(4);
+            assertThat(dataset.stream().count()).isEqualTo(4);
+        }
+    }
+}
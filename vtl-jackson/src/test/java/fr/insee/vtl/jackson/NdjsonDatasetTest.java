@@ -0,0 +1,88 @@
+package fr.insee.vtl.jackson;
+
+import fr.insee.vtl.model.Dataset;
+import fr.insee.vtl.model.InMemoryDataset;
+import fr.insee.vtl.model.LazyDataset;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class NdjsonDatasetTest extends AbstractMapperTest {
+
+    private static final List<Dataset.Component> STRUCTURE = List.of(
+            new Dataset.Component("id", Long.class, Dataset.Role.IDENTIFIER),
+            new Dataset.Component("value", Double.class, Dataset.Role.MEASURE),
+            new Dataset.Component("label", String.class, Dataset.Role.MEASURE)
+    );
+
+    private static Path tempFile() throws IOException {
+        var file = Files.createTempFile("dataset", ".ndjson");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        List<List<Object>> rows = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) {
+            rows.add(Arrays.asList(i, i % 7 == 0 ? null : i / 2.0, "label" + i));
+        }
+        var file = tempFile();
+        try (var output = Files.newOutputStream(file)) {
+            new NdjsonDatasetWriter(mapper).write(new InMemoryDataset(rows, STRUCTURE), output);
+        }
+
+        var lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(1001);
+        assertThat(lines.get(1)).isEqualTo("[0,null,\"label0\"]");
+
+        // Small chunks so that the file is split in many partitions.
+        var reader = new NdjsonDatasetReader(mapper, new ForkJoinPool(4), 100);
+        var dataset = reader.read(file);
+        assertThat(dataset.getDataStructure()).isEqualTo(STRUCTURE);
+        assertThat(dataset.getPartitions().size()).isGreaterThan(100);
+        assertThat(dataset.getDataPoints()).isEqualTo(rows);
+        assertThat(dataset.stream().collect(Collectors.toList())).isEqualTo(rows);
+    }
+
+    @Test
+    public void testWriteLazyDataset() throws IOException {
+        var dataset = new LazyDataset(() -> Stream.of(List.of(1L, 1.5, "a"), List.of(2L, 2.5, "b")), STRUCTURE) {
+            @Override
+            public List<List<Object>> getDataPoints() {
+                throw new AssertionError("the dataset should not be materialized");
+            }
+        };
+
+        var output = new ByteArrayOutputStream();
+        new NdjsonDatasetWriter(mapper).write(dataset, output);
+
+        var lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[1]).isEqualTo("[1,1.5,\"a\"]");
+        assertThat(lines[2]).isEqualTo("[2,2.5,\"b\"]");
+    }
+
+    @Test
+    public void testReadInvalidLine() throws IOException {
+        var file = tempFile();
+        Files.writeString(file, mapper.writeValueAsString(STRUCTURE) + "\n" +
+                "[1, 1.5, \"a\"]\n" +
+                "{\"id\": 2}\n");
+
+        assertThatThrownBy(() -> new NdjsonDatasetReader(mapper).read(file)).isInstanceOf(IOException.class);
+    }
+}
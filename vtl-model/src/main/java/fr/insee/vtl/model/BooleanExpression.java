@@ -5,6 +5,10 @@ import java.util.function.Function;
 
 /**
  * The <code>BooleanExpression</code> class is an abstract representation of a boolean expression.
+ * <p>
+ * Since <code>Boolean</code> values are cached, {@link #resolve(Map)} does not allocate and its null result carries the
+ * unknown value of the three-valued logic. {@link #resolveBoolean(Map)} is a shortcut treating null as
+ * <code>false</code>.
  */
 public abstract class BooleanExpression implements ResolvableExpression {
 
@@ -20,6 +24,16 @@ public abstract class BooleanExpression implements ResolvableExpression {
     @Override
     public abstract Boolean resolve(Map<String, Object> context);
 
+    /**
+     * Resolves the expression in a given context as a primitive boolean.
+     *
+     * @param context The context for the resolution.
+     * @return <code>true</code> if the expression resolves to true, <code>false</code> if it resolves to false or null.
+     */
+    public boolean resolveBoolean(Map<String, Object> context) {
+        return Boolean.TRUE.equals(resolve(context));
+    }
+
     @Override
     public Class<?> getType() {
         return Boolean.class;
@@ -33,4 +47,17 @@ public abstract class BooleanExpression implements ResolvableExpression {
             }
         };
     }
+
+    /**
+     * Returns an expression of type <code>Boolean</code> as a <code>BooleanExpression</code>.
+     *
+     * @param expression An expression of type <code>Boolean</code>.
+     * @return The expression itself if it is a <code>BooleanExpression</code>, a wrapper around it otherwise.
+     */
+    public static BooleanExpression wrap(ResolvableExpression expression) {
+        if (expression instanceof BooleanExpression) {
+            return (BooleanExpression) expression;
+        }
+        return of(context -> (Boolean) expression.resolve(context));
+    }
 }
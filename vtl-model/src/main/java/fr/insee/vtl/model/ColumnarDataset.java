@@ -0,0 +1,454 @@
+package fr.insee.vtl.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Implementation of <code>Dataset</code> storing the data in memory column by column.
+ * <p>
+ * Components of type <code>Long</code> are stored as <code>long[]</code>, components of type <code>Double</code> as
+ * <code>double[]</code>, components of type <code>Boolean</code> as bit sets and other components (strings) as arrays
+ * of references. Each column keeps its own null bitmap, so no value is boxed until it is read through the row view
+ * returned by {@link #getDataPoints()}.
+ * <p>
+ * Datasets of unknown size can be filled value by value with a {@link Builder}.
+ */
+public class ColumnarDataset implements Dataset {
+
+    private final List<Component> components;
+    private final Column[] columns;
+    private final int size;
+
+    /**
+     * Constructor taking initial data and a list of structure components.
+     *
+     * @param data       The initial data as a list of list of objects representing data contents.
+     * @param structures The list of structure components forming the structure of the dataset.
+     */
+    public ColumnarDataset(List<List<Object>> data, List<Component> structures) {
+        this.components = List.copyOf(Objects.requireNonNull(structures));
+        this.size = Objects.requireNonNull(data).size();
+        this.columns = new Column[components.size()];
+        for (int col = 0; col < columns.length; col++) {
+            columns[col] = Column.of(components.get(col).getType(), size);
+        }
+        int row = 0;
+        for (List<Object> dataPoint : data) {
+            if (dataPoint.size() != columns.length) {
+                throw new IllegalArgumentException("row " + row + " does not match the structure size");
+            }
+            for (int col = 0; col < columns.length; col++) {
+                columns[col].set(row, dataPoint.get(col));
+            }
+            row++;
+        }
+    }
+
+    private ColumnarDataset(List<Component> components, Column[] columns, int size) {
+        this.components = components;
+        this.columns = columns;
+        this.size = size;
+    }
+
+    /**
+     * Constructor copying the content of another dataset in columnar form.
+     *
+     * @param dataset The dataset to copy.
+     */
+    public ColumnarDataset(Dataset dataset) {
+        this(dataset.getDataPoints(), dataset.getDataStructure());
+    }
+
+    /**
+     * Returns the number of data points in the dataset.
+     *
+     * @return The number of data points in the dataset.
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getSizeIfKnown() {
+        return size;
+    }
+
+    /**
+     * Checks if the value at the given position is null.
+     *
+     * @param row    The index of the data point.
+     * @param column The index of the component in the structure.
+     * @return <code>true</code> if the value is null, <code>false</code> otherwise.
+     */
+    public boolean isNull(int row, int column) {
+        Objects.checkIndex(row, size);
+        return columns[column].isNull(row);
+    }
+
+    /**
+     * Returns the value at the given position of a component of type <code>Long</code> without boxing it.
+     *
+     * @param row    The index of the data point.
+     * @param column The index of the component in the structure.
+     * @return The value at the given position, <code>0</code> if the value is null.
+     * @throws ClassCastException If the component is not of type <code>Long</code>.
+     */
+    public long getLong(int row, int column) {
+        Objects.checkIndex(row, size);
+        return ((LongColumn) columns[column]).values[row];
+    }
+
+    /**
+     * Returns the value at the given position of a component of type <code>Double</code> without boxing it.
+     *
+     * @param row    The index of the data point.
+     * @param column The index of the component in the structure.
+     * @return The value at the given position, <code>0</code> if the value is null.
+     * @throws ClassCastException If the component is not of type <code>Double</code>.
+     */
+    public double getDouble(int row, int column) {
+        Objects.checkIndex(row, size);
+        return ((DoubleColumn) columns[column]).values[row];
+    }
+
+    /**
+     * Returns the value at the given position of a component of type <code>Boolean</code> without boxing it.
+     *
+     * @param row    The index of the data point.
+     * @param column The index of the component in the structure.
+     * @return The value at the given position, <code>false</code> if the value is null.
+     * @throws ClassCastException If the component is not of type <code>Boolean</code>.
+     */
+    public boolean getBoolean(int row, int column) {
+        Objects.checkIndex(row, size);
+        return ((BooleanColumn) columns[column]).values.get(row);
+    }
+
+    /**
+     * Returns the value at the given position.
+     *
+     * @param row    The index of the data point.
+     * @param column The index of the component in the structure.
+     * @return The value at the given position or <code>null</code>.
+     */
+    public Object get(int row, int column) {
+        Objects.checkIndex(row, size);
+        return columns[column].get(row);
+    }
+
+    /**
+     * Returns a row view of the data contained in the dataset. The rows are created on access. Their values can be
+     * replaced with <code>set</code>, which writes to the columns, but they cannot be resized.
+     *
+     * @return The data contained in the dataset as a list of list of objects.
+     */
+    @Override
+    public List<List<Object>> getDataPoints() {
+        return new Rows();
+    }
+
+    @Override
+    public List<Component> getDataStructure() {
+        return components;
+    }
+
+    /**
+     * Builder filling a <code>ColumnarDataset</code> row by row, without boxing the values of components of type
+     * <code>Long</code>, <code>Double</code> or <code>Boolean</code>.
+     * <p>
+     * Each value of the current row is set by column index, then the row is ended with {@link #endRow()}. Columns grow
+     * as rows are added.
+     */
+    public static class Builder {
+
+        private static final int DEFAULT_CAPACITY = 16;
+
+        private final List<Component> components;
+        private final Column[] columns;
+        private int size;
+        private int capacity;
+
+        /**
+         * Constructor taking the structure of the dataset.
+         *
+         * @param structure The list of structure components forming the structure of the dataset.
+         */
+        public Builder(List<Component> structure) {
+            this.components = List.copyOf(Objects.requireNonNull(structure));
+            this.capacity = DEFAULT_CAPACITY;
+            this.columns = new Column[components.size()];
+            for (int col = 0; col < columns.length; col++) {
+                columns[col] = Column.of(components.get(col).getType(), capacity);
+            }
+        }
+
+        /**
+         * Sets a value of a component of type <code>Long</code> in the current row.
+         *
+         * @param column The index of the component in the structure.
+         * @param value  The value.
+         * @return This builder.
+         * @throws ClassCastException If the component is not of type <code>Long</code>.
+         */
+        public Builder setLong(int column, long value) {
+            ((LongColumn) columns[column]).values[size] = value;
+            return this;
+        }
+
+        /**
+         * Sets a value of a component of type <code>Double</code> in the current row.
+         *
+         * @param column The index of the component in the structure.
+         * @param value  The value.
+         * @return This builder.
+         * @throws ClassCastException If the component is not of type <code>Double</code>.
+         */
+        public Builder setDouble(int column, double value) {
+            ((DoubleColumn) columns[column]).values[size] = value;
+            return this;
+        }
+
+        /**
+         * Sets a value of a component of type <code>Boolean</code> in the current row.
+         *
+         * @param column The index of the component in the structure.
+         * @param value  The value.
+         * @return This builder.
+         * @throws ClassCastException If the component is not of type <code>Boolean</code>.
+         */
+        public Builder setBoolean(int column, boolean value) {
+            ((BooleanColumn) columns[column]).values.set(size, value);
+            return this;
+        }
+
+        /**
+         * Sets a value in the current row.
+         *
+         * @param column The index of the component in the structure.
+         * @param value  The value or <code>null</code>.
+         * @return This builder.
+         */
+        public Builder set(int column, Object value) {
+            columns[column].set(size, value);
+            return this;
+        }
+
+        /**
+         * Ends the current row, the next values are set in a new row.
+         *
+         * @return This builder.
+         */
+        public Builder endRow() {
+            size++;
+            if (size == capacity) {
+                capacity = capacity + (capacity >> 1);
+                for (Column column : columns) {
+                    column.grow(capacity);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Returns the number of rows ended so far.
+         *
+         * @return The number of rows of the dataset.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Creates the dataset containing the ended rows. The builder should not be used afterwards.
+         *
+         * @return A new <code>ColumnarDataset</code>.
+         */
+        public ColumnarDataset build() {
+            return new ColumnarDataset(components, columns, size);
+        }
+    }
+
+    private class Rows extends AbstractList<List<Object>> implements RandomAccess {
+
+        @Override
+        public List<Object> get(int index) {
+            Objects.checkIndex(index, size);
+            return new Row(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private class Row extends AbstractList<Object> implements RandomAccess {
+
+        private final int row;
+
+        Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(int index) {
+            return columns[index].get(row);
+        }
+
+        @Override
+        public Object set(int index, Object value) {
+            var previous = columns[index].get(row);
+            columns[index].set(row, value);
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+    }
+
+    /**
+     * Storage of the values of one component along with its null bitmap.
+     */
+    private abstract static class Column {
+
+        final BitSet nulls = new BitSet();
+
+        static Column of(Class<?> type, int size) {
+            if (Long.class.equals(type)) {
+                return new LongColumn(size);
+            }
+            if (Double.class.equals(type)) {
+                return new DoubleColumn(size);
+            }
+            if (Boolean.class.equals(type)) {
+                return new BooleanColumn(size);
+            }
+            return new ObjectColumn(size);
+        }
+
+        boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        Object get(int row) {
+            return nulls.get(row) ? null : getValue(row);
+        }
+
+        void set(int row, Object value) {
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                nulls.clear(row);
+                setValue(row, value);
+            }
+        }
+
+        abstract Object getValue(int row);
+
+        abstract void setValue(int row, Object value);
+
+        abstract void grow(int capacity);
+    }
+
+    private static class LongColumn extends Column {
+
+        long[] values;
+
+        LongColumn(int size) {
+            values = new long[size];
+        }
+
+        @Override
+        Object getValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        void setValue(int row, Object value) {
+            values[row] = ((Number) value).longValue();
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+
+        double[] values;
+
+        DoubleColumn(int size) {
+            values = new double[size];
+        }
+
+        @Override
+        Object getValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        void setValue(int row, Object value) {
+            values[row] = ((Number) value).doubleValue();
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static class BooleanColumn extends Column {
+
+        final BitSet values;
+
+        BooleanColumn(int size) {
+            values = new BitSet(size);
+        }
+
+        @Override
+        Object getValue(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        void setValue(int row, Object value) {
+            values.set(row, (Boolean) value);
+        }
+
+        @Override
+        void grow(int capacity) {
+            // Bit sets grow on their own.
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+
+        Object[] values;
+
+        ObjectColumn(int size) {
+            values = new Object[size];
+        }
+
+        @Override
+        Object getValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        void setValue(int row, Object value) {
+            values[row] = value;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package fr.insee.vtl.model;
+
+import java.util.*;
+
+/**
+ * The <code>DataPoint</code> class is a view of a row of a dataset as a mapping between component names and values.
+ * <p>
+ * The row is not copied: values are read from the underlying list, by position with {@link #get(int)} or by name
+ * through the {@link DataStructure} shared by all the data points of a dataset.
+ */
+public class DataPoint extends AbstractMap<String, Object> {
+
+    private final DataStructure structure;
+    private final List<Object> values;
+
+    /**
+     * Constructor taking the structure and the values of the data point.
+     *
+     * @param structure The structure of the data point.
+     * @param values    The values of the data point, in the order of the structure.
+     */
+    public DataPoint(DataStructure structure, List<Object> values) {
+        this.structure = Objects.requireNonNull(structure);
+        this.values = Objects.requireNonNull(values);
+    }
+
+    /**
+     * Returns the structure of the data point.
+     *
+     * @return The structure of the data point.
+     */
+    public DataStructure getStructure() {
+        return structure;
+    }
+
+    /**
+     * Returns the values of the data point.
+     *
+     * @return The values of the data point, in the order of the structure.
+     */
+    public List<Object> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the value of the component at a given position.
+     *
+     * @param index The position of the component in the structure.
+     * @return The value of the component.
+     */
+    public Object get(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * Sets the value of the component at a given position.
+     *
+     * @param index The position of the component in the structure.
+     * @param value The new value of the component.
+     * @return The previous value of the component.
+     */
+    public Object set(int index, Object value) {
+        return values.set(index, value);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        var index = structure.indexOf((String) key);
+        return index < 0 ? null : values.get(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return structure.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return structure.size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < structure.size();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        var name = structure.getComponent(index).getName();
+                        return new SimpleImmutableEntry<>(name, values.get(index++));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return structure.size();
+            }
+        };
+    }
+}
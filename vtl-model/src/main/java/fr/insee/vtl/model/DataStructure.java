@@ -0,0 +1,105 @@
+package fr.insee.vtl.model;
+
+import java.util.*;
+
+/**
+ * The <code>DataStructure</code> class is an ordered, read-only mapping between the names and the components of a
+ * dataset structure.
+ * <p>
+ * Besides the lookup by name, it gives the position of each component so that expressions can be bound to a column
+ * index once, when the script is visited, and read the values of a {@link DataPoint} by index afterwards.
+ */
+public class DataStructure extends AbstractMap<String, Dataset.Component> {
+
+    private final List<Dataset.Component> components;
+    private final Map<String, Integer> indices;
+
+    /**
+     * Constructor taking the list of components of the structure.
+     *
+     * @param components The components of the structure, in the order of the data point values.
+     * @throws IllegalArgumentException If two components have the same name.
+     */
+    public DataStructure(Collection<Dataset.Component> components) {
+        this.components = List.copyOf(components);
+        this.indices = new HashMap<>(this.components.size() * 2);
+        for (int i = 0; i < this.components.size(); i++) {
+            var name = this.components.get(i).getName();
+            if (indices.put(name, i) != null) {
+                throw new IllegalArgumentException("duplicate component " + name);
+            }
+        }
+    }
+
+    /**
+     * Returns the position of a component in the structure.
+     *
+     * @param name The name of the component.
+     * @return The position of the component, or <code>-1</code> if there is no component with this name.
+     */
+    public int indexOf(String name) {
+        return indices.getOrDefault(name, -1);
+    }
+
+    /**
+     * Returns the component at a given position in the structure.
+     *
+     * @param index The position of the component.
+     * @return The component at the given position.
+     */
+    public Dataset.Component getComponent(int index) {
+        return components.get(index);
+    }
+
+    /**
+     * Returns the components of the structure as a list.
+     *
+     * @return The components of the structure in the order of the data point values.
+     */
+    public List<Dataset.Component> getComponents() {
+        return components;
+    }
+
+    @Override
+    public Dataset.Component get(Object key) {
+        var index = indices.get(key);
+        return index == null ? null : components.get(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indices.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return components.size();
+    }
+
+    @Override
+    public Set<Entry<String, Dataset.Component>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Dataset.Component>> iterator() {
+                var iterator = components.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Dataset.Component> next() {
+                        var component = iterator.next();
+                        return new SimpleImmutableEntry<>(component.getName(), component);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return components.size();
+            }
+        };
+    }
+}
@@ -2,7 +2,7 @@ package fr.insee.vtl.model;
 
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * <code>Dataset</code> is the base interface for structured datasets conforming to the VTL data model.
@@ -35,17 +35,59 @@ public interface Dataset extends Structured {
      */
     List<List<Object>> getDataPoints();
 
+    /**
+     * Returns the data contained in the dataset as a sequential stream of data points.
+     * <p>
+     * The data points are in the order of the structure components. Lazy implementations override this method so that
+     * the data points can be consumed one after the other without materializing the whole dataset.
+     *
+     * @return The data contained in the dataset as a stream of list of objects.
+     */
+    default Stream<List<Object>> stream() {
+        return getDataPoints().stream();
+    }
+
+    /**
+     * Returns the number of data points of the dataset if it is known without reading them.
+     * <p>
+     * Operators use it to plan their execution, for instance to choose the smaller side of a join.
+     *
+     * @return The number of data points, or <code>-1</code> if it is not known.
+     */
+    default long getSizeIfKnown() {
+        return -1;
+    }
+
+    /**
+     * Returns the components the data points of the dataset are sorted on, if the dataset declares it.
+     * <p>
+     * The data points are sorted in ascending order of the values of the first component, then of the second one and
+     * so on. Values are compared with their natural ordering, <code>null</code> first. Operators use it to process
+     * sorted data points in a streaming fashion, for instance to merge the two sides of a join.
+     *
+     * @return The names of the components the data points are sorted on, or an empty list if the order is unknown.
+     */
+    default List<String> getSortOrder() {
+        return List.of();
+    }
+
     /**
      * Returns the data contained in the dataset as a list of mappings between column names and column contents.
+     * <p>
+     * Each mapping is a new, modifiable <code>HashMap</code>. The engine reads the rows through {@link DataPoint}
+     * views instead, which do not copy them.
      *
      * @return The data contained in the dataset as a list of mappings between column names and column contents.
      */
     default List<Map<String, Object>> getDataAsMap() {
-        return getDataPoints().stream().map(objects ->
-                IntStream.range(0, getDataStructure().size())
-                        .boxed()
-                        .collect(HashMap<String, Object>::new, (acc, idx) -> acc.put(getDataStructure().get(idx).getName(), objects.get(idx)), HashMap::putAll))
-                .collect(Collectors.toList());
+        var names = getColumnNames();
+        return stream().map(row -> {
+            Map<String, Object> map = new HashMap<>(names.size() * 2);
+            for (int i = 0; i < names.size(); i++) {
+                map.put(names.get(i), row.get(i));
+            }
+            return map;
+        }).collect(Collectors.toList());
     }
 
     /**
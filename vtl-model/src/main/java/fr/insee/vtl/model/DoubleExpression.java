@@ -5,6 +5,9 @@ import java.util.function.Function;
 
 /**
  * The <code>DoubleExpression</code> class is an abstract representation of an expression of type <code>Double</code>.
+ * <p>
+ * Besides {@link #resolve(Map)}, it can be evaluated without boxing through {@link #resolveDouble(Map, boolean[])},
+ * which reports null results through a flag so that each operand is evaluated once.
  */
 public abstract class DoubleExpression extends NumberExpression {
 
@@ -28,6 +31,31 @@ public abstract class DoubleExpression extends NumberExpression {
         };
     }
 
+    /**
+     * Returns a <code>DoubleExpression</code> evaluated with a primitive function.
+     * <p>
+     * The result is boxed only when the expression is resolved with {@link #resolve(Map)}.
+     *
+     * @param func A function applicable to a dataset context and yielding a <code>double</code> result, or setting
+     *             the null flag.
+     * @return An expression resolving to the result of the function.
+     */
+    public static DoubleExpression of(Primitive func) {
+        return new DoubleExpression() {
+            @Override
+            public Double resolve(Map<String, Object> context) {
+                var isNull = new boolean[1];
+                double value = func.apply(context, isNull);
+                return isNull[0] ? null : value;
+            }
+
+            @Override
+            public double resolveDouble(Map<String, Object> context, boolean[] isNull) {
+                return func.apply(context, isNull);
+            }
+        };
+    }
+
     public static DoubleExpression of(Double value) {
         return new DoubleExpression() {
             @Override
@@ -37,11 +65,69 @@ public abstract class DoubleExpression extends NumberExpression {
         };
     }
 
+    /**
+     * Returns a numeric expression as a <code>DoubleExpression</code>.
+     * <p>
+     * <code>LongExpression</code> instances are converted without boxing.
+     *
+     * @param expression An expression of type <code>Long</code> or <code>Double</code>.
+     * @return The expression itself if it is a <code>DoubleExpression</code>, a wrapper around it otherwise.
+     */
+    public static DoubleExpression wrap(ResolvableExpression expression) {
+        if (expression instanceof DoubleExpression) {
+            return (DoubleExpression) expression;
+        }
+        if (expression instanceof LongExpression) {
+            var longExpression = (LongExpression) expression;
+            return of((context, isNull) -> longExpression.resolveLong(context, isNull));
+        }
+        return of(context -> {
+            Object value = expression.resolve(context);
+            return value == null ? null : ((Number) value).doubleValue();
+        });
+    }
+
     @Override
     public abstract Double resolve(Map<String, Object> context);
 
+    /**
+     * Resolves the expression in a given context without boxing the result.
+     * <p>
+     * The first element of the flag is set to <code>true</code> when the result is null, and is left unchanged
+     * otherwise. Callers pass a flag set to <code>false</code> and check it before using the result.
+     *
+     * @param context The context for the resolution.
+     * @param isNull  The flag telling if the result is null.
+     * @return The result of the resolution, or <code>0</code> if the result is null.
+     */
+    public double resolveDouble(Map<String, Object> context, boolean[] isNull) {
+        Double value = resolve(context);
+        if (value == null) {
+            isNull[0] = true;
+            return 0D;
+        }
+        return value;
+    }
+
     @Override
     public Class<Double> getType() {
         return Double.class;
     }
+
+    /**
+     * Function yielding a <code>double</code> result, following the contract of
+     * {@link DoubleExpression#resolveDouble(Map, boolean[])}.
+     */
+    @FunctionalInterface
+    public interface Primitive {
+
+        /**
+         * Applies the function to a dataset context.
+         *
+         * @param context The dataset context.
+         * @param isNull  The flag to set when the result is null.
+         * @return The result of the function, or <code>0</code> if the result is null.
+         */
+        double apply(Map<String, Object> context, boolean[] isNull);
+    }
 }
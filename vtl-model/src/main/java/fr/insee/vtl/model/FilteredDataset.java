@@ -0,0 +1,223 @@
+package fr.insee.vtl.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Implementation of <code>Dataset</code> exposing the data points of another dataset that satisfy a condition.
+ * <p>
+ * When the data points of the underlying dataset are in memory, as with {@link InMemoryDataset} and
+ * {@link ColumnarDataset}, they are not copied: the dataset keeps the underlying dataset and a selection vector, that
+ * is the positions of the selected data points in the underlying dataset. The selection is computed the first time
+ * the data points are accessed with {@link #getDataPoints()}; before that, {@link #stream()} filters the stream of
+ * the underlying dataset. Filtering a filtered dataset intersects the selections and refers to the same underlying
+ * dataset.
+ * <p>
+ * Other datasets, such as {@link LazyDataset}, are only streamed: {@link #getDataPoints()} collects the selected data
+ * points, and the underlying data points are never all held in memory. A selection vector over such a dataset is
+ * applied as the data points are streamed.
+ */
+public class FilteredDataset implements Dataset {
+
+    private final Dataset dataset;
+    private final FilteredDataset parent;
+    private final Predicate<List<Object>> predicate;
+    private volatile int[] selection;
+    private volatile long size = -1;
+
+    /**
+     * Constructor taking the dataset to filter and the positions of the selected data points.
+     *
+     * @param dataset   The underlying dataset.
+     * @param selection The positions of the selected data points in the underlying dataset, in increasing order.
+     */
+    public FilteredDataset(Dataset dataset, int[] selection) {
+        Objects.requireNonNull(dataset);
+        Objects.requireNonNull(selection);
+        if (dataset instanceof FilteredDataset && ((FilteredDataset) dataset).isRandomAccess()) {
+            var filtered = (FilteredDataset) dataset;
+            var parentSelection = filtered.getSelection();
+            var composed = new int[selection.length];
+            for (int i = 0; i < selection.length; i++) {
+                composed[i] = parentSelection[selection[i]];
+            }
+            this.dataset = filtered.dataset;
+            this.selection = composed;
+        } else {
+            this.dataset = dataset;
+            this.selection = selection.clone();
+        }
+        this.parent = null;
+        this.predicate = null;
+    }
+
+    /**
+     * Constructor taking the dataset to filter and the condition the selected data points satisfy.
+     *
+     * @param dataset   The underlying dataset.
+     * @param predicate The condition the selected data points satisfy.
+     */
+    public FilteredDataset(Dataset dataset, Predicate<List<Object>> predicate) {
+        Objects.requireNonNull(dataset);
+        if (dataset instanceof FilteredDataset) {
+            this.parent = (FilteredDataset) dataset;
+            this.dataset = parent.dataset;
+        } else {
+            this.parent = null;
+            this.dataset = dataset;
+        }
+        this.predicate = Objects.requireNonNull(predicate);
+    }
+
+    /**
+     * Checks if the data points of a dataset can be read by position without being computed.
+     */
+    private static boolean isMaterialized(Dataset dataset) {
+        return dataset instanceof InMemoryDataset || dataset instanceof ColumnarDataset;
+    }
+
+    private boolean isRandomAccess() {
+        return isMaterialized(dataset);
+    }
+
+    private int[] getSelection() {
+        var selection = this.selection;
+        if (selection == null) {
+            var rows = dataset.getDataPoints();
+            // Only the data points selected by the parent are candidates.
+            var candidates = parent != null ? parent.getSelection() : null;
+            var count = candidates != null ? candidates.length : rows.size();
+            var selected = new int[Math.min(count, 1024)];
+            var size = 0;
+            for (int k = 0; k < count; k++) {
+                var i = candidates != null ? candidates[k] : k;
+                if (predicate.test(rows.get(i))) {
+                    if (size == selected.length) {
+                        selected = Arrays.copyOf(selected, size * 2);
+                    }
+                    selected[size++] = i;
+                }
+            }
+            selection = Arrays.copyOf(selected, size);
+            this.selection = selection;
+        }
+        return selection;
+    }
+
+    /**
+     * Returns the number of selected data points.
+     *
+     * @return The number of selected data points.
+     */
+    public int size() {
+        var size = getSizeIfKnown();
+        if (size < 0) {
+            if (isRandomAccess()) {
+                return getSelection().length;
+            }
+            try (var stream = stream()) {
+                size = stream.count();
+            }
+            this.size = size;
+        }
+        return (int) size;
+    }
+
+    @Override
+    public long getSizeIfKnown() {
+        var selection = this.selection;
+        return selection != null ? selection.length : size;
+    }
+
+    @Override
+    public Stream<List<Object>> stream() {
+        var selection = this.selection;
+        if (selection != null) {
+            return isRandomAccess() ? getDataPoints().stream() : streamSelection(selection);
+        }
+        var stream = parent != null ? parent.stream() : dataset.stream();
+        return stream.filter(predicate);
+    }
+
+    /**
+     * Streams the underlying dataset, keeping the data points at the positions of a selection.
+     */
+    private Stream<List<Object>> streamSelection(int[] selection) {
+        var stream = dataset.stream();
+        var rows = stream.iterator();
+        var selected = new Iterator<List<Object>>() {
+            private int position = 0;
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < selection.length;
+            }
+
+            @Override
+            public List<Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                for (; position < selection[next]; position++) {
+                    rows.next();
+                }
+                position++;
+                next++;
+                return rows.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliterator(selected, selection.length,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(stream::close);
+    }
+
+    @Override
+    public List<List<Object>> getDataPoints() {
+        if (!isRandomAccess()) {
+            return stream().collect(Collectors.toList());
+        }
+        return new Rows(dataset.getDataPoints(), getSelection());
+    }
+
+    @Override
+    public List<String> getSortOrder() {
+        return dataset.getSortOrder();
+    }
+
+    @Override
+    public List<Component> getDataStructure() {
+        return dataset.getDataStructure();
+    }
+
+    private static class Rows extends AbstractList<List<Object>> implements RandomAccess {
+
+        private final List<List<Object>> rows;
+        private final int[] selection;
+
+        Rows(List<List<Object>> rows, int[] selection) {
+            this.rows = rows;
+            this.selection = selection;
+        }
+
+        @Override
+        public List<Object> get(int index) {
+            return rows.get(selection[index]);
+        }
+
+        @Override
+        public int size() {
+            return selection.length;
+        }
+    }
+}
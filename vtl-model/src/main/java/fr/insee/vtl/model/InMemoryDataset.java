@@ -14,6 +14,7 @@ public class InMemoryDataset implements Dataset {
     private final List<List<Object>> data;
     private final List<Component> components;
     private final List<String> columns;
+    private final List<String> sortOrder;
 
     /**
      * Constructor taking initial data and structure components types and roles.
@@ -39,6 +40,7 @@ public class InMemoryDataset implements Dataset {
                     new Component(column, types.get(column), roles.get(column))
             );
         }
+        this.sortOrder = List.of();
     }
 
     /**
@@ -48,9 +50,25 @@ public class InMemoryDataset implements Dataset {
      * @param structures The list of structure components forming the structure of the dataset.
      */
     public InMemoryDataset(List<List<Object>> data, List<Component> structures) {
+        this(data, structures, List.of());
+    }
+
+    /**
+     * Constructor taking initial data, a list of structure components and the components the data is sorted on.
+     *
+     * @param data       The initial data as a list of list of objects representing data contents.
+     * @param structures The list of structure components forming the structure of the dataset.
+     * @param sortOrder  The names of the components the data is sorted on.
+     * @see Dataset#getSortOrder()
+     */
+    public InMemoryDataset(List<List<Object>> data, List<Component> structures, List<String> sortOrder) {
         this.components = Objects.requireNonNull(structures);
         this.columns = this.components.stream().map(Component::getName).collect(Collectors.toList());
         this.data = Objects.requireNonNull(data);
+        if (!columns.containsAll(sortOrder)) {
+            throw new IllegalArgumentException("sort order " + sortOrder + " is not in the structure");
+        }
+        this.sortOrder = List.copyOf(sortOrder);
     }
 
     /**
@@ -68,6 +86,16 @@ public class InMemoryDataset implements Dataset {
         return data;
     }
 
+    @Override
+    public long getSizeIfKnown() {
+        return data.size();
+    }
+
+    @Override
+    public List<String> getSortOrder() {
+        return sortOrder;
+    }
+
     @Override
     public List<Component> getDataStructure() {
         return components;
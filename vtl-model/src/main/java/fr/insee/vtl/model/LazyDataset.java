@@ -0,0 +1,71 @@
+package fr.insee.vtl.model;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of <code>Dataset</code> whose data points are computed on demand.
+ * <p>
+ * Nothing is kept in memory: every call to {@link #stream()} asks the supplier for a new stream, and every call to
+ * {@link #getDataPoints()} collects a new stream. Callers reading the data points several times hold on to the
+ * collected list.
+ */
+public class LazyDataset implements Dataset {
+
+    private final Supplier<Stream<List<Object>>> supplier;
+    private final List<Component> components;
+    private final List<String> sortOrder;
+
+    /**
+     * Constructor taking a supplier of data points and a list of structure components.
+     *
+     * @param supplier   A supplier returning a new stream of the data points each time it is called.
+     * @param structures The list of structure components forming the structure of the dataset.
+     */
+    public LazyDataset(Supplier<Stream<List<Object>>> supplier, List<Component> structures) {
+        this(supplier, structures, List.of());
+    }
+
+    /**
+     * Constructor taking a supplier of data points, a list of structure components and the components the data
+     * points are sorted on.
+     *
+     * @param supplier   A supplier returning a new stream of the data points each time it is called.
+     * @param structures The list of structure components forming the structure of the dataset.
+     * @param sortOrder  The names of the components the supplied data points are sorted on.
+     * @see Dataset#getSortOrder()
+     */
+    public LazyDataset(Supplier<Stream<List<Object>>> supplier, List<Component> structures, List<String> sortOrder) {
+        this.supplier = Objects.requireNonNull(supplier);
+        this.components = Objects.requireNonNull(structures);
+        if (!getColumnNames().containsAll(sortOrder)) {
+            throw new IllegalArgumentException("sort order " + sortOrder + " is not in the structure");
+        }
+        this.sortOrder = List.copyOf(sortOrder);
+    }
+
+    @Override
+    public Stream<List<Object>> stream() {
+        return supplier.get();
+    }
+
+    @Override
+    public List<List<Object>> getDataPoints() {
+        try (var stream = supplier.get()) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public List<String> getSortOrder() {
+        return sortOrder;
+    }
+
+    @Override
+    public List<Component> getDataStructure() {
+        return components;
+    }
+}
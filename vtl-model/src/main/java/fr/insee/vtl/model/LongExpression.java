@@ -5,6 +5,9 @@ import java.util.function.Function;
 
 /**
  * The <code>LongExpression</code> class is an abstract representation of an expression of type <code>Long</code>.
+ * <p>
+ * Besides {@link #resolve(Map)}, it can be evaluated without boxing through {@link #resolveLong(Map, boolean[])},
+ * which reports null results through a flag so that each operand is evaluated once.
  */
 public abstract class LongExpression extends NumberExpression {
 
@@ -31,6 +34,25 @@ public abstract class LongExpression extends NumberExpression {
     @Override
     public abstract Long resolve(Map<String, Object> context);
 
+    /**
+     * Resolves the expression in a given context without boxing the result.
+     * <p>
+     * The first element of the flag is set to <code>true</code> when the result is null, and is left unchanged
+     * otherwise. Callers pass a flag set to <code>false</code> and check it before using the result.
+     *
+     * @param context The context for the resolution.
+     * @param isNull  The flag telling if the result is null.
+     * @return The result of the resolution, or <code>0</code> if the result is null.
+     */
+    public long resolveLong(Map<String, Object> context, boolean[] isNull) {
+        Long value = resolve(context);
+        if (value == null) {
+            isNull[0] = true;
+            return 0L;
+        }
+        return value;
+    }
+
     @Override
     public Class<Long> getType() {
         return Long.class;
@@ -50,4 +72,62 @@ public abstract class LongExpression extends NumberExpression {
             }
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a <code>LongExpression</code> evaluated with a primitive function.
+     * <p>
+     * The result is boxed only when the expression is resolved with {@link #resolve(Map)}.
+     *
+     * @param func A function applicable to a dataset context and yielding a <code>long</code> result, or setting the
+     *             null flag.
+     * @return An expression resolving to the result of the function.
+     */
+    public static LongExpression of(Primitive func) {
+        return new LongExpression() {
+            @Override
+            public Long resolve(Map<String, Object> context) {
+                var isNull = new boolean[1];
+                long value = func.apply(context, isNull);
+                return isNull[0] ? null : value;
+            }
+
+            @Override
+            public long resolveLong(Map<String, Object> context, boolean[] isNull) {
+                return func.apply(context, isNull);
+            }
+        };
+    }
+
+    /**
+     * Returns an expression of type <code>Long</code> as a <code>LongExpression</code>.
+     *
+     * @param expression An expression of type <code>Long</code>.
+     * @return The expression itself if it is a <code>LongExpression</code>, a wrapper around it otherwise.
+     */
+    public static LongExpression wrap(ResolvableExpression expression) {
+        if (expression instanceof LongExpression) {
+            return (LongExpression) expression;
+        }
+        return of(context -> {
+            Object value = expression.resolve(context);
+            return value == null ? null : ((Number) value).longValue();
+        });
+    }
+
+    /**
+     * Function yielding a <code>long</code> result, following the contract of
+     * {@link LongExpression#resolveLong(Map, boolean[])}.
+     */
+    @FunctionalInterface
+    public interface Primitive {
+
+        /**
+         * Applies the function to a dataset context.
+         *
+         * @param context The dataset context.
+         * @param isNull  The flag to set when the result is null.
+         * @return The result of the function, or <code>0</code> if the result is null.
+         */
+        long apply(Map<String, Object> context, boolean[] isNull);
+    }
+}
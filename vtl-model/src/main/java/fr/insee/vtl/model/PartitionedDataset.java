@@ -0,0 +1,118 @@
+package fr.insee.vtl.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of <code>Dataset</code> made of partitions sharing the same structure.
+ * <p>
+ * The data points of the dataset are the data points of the partitions, one partition after the other. They are not
+ * copied: {@link #getDataPoints()} returns a view over the partitions. Operators able to process the partitions
+ * independently, for instance in parallel, can access them with {@link #getPartitions()}.
+ */
+public class PartitionedDataset implements Dataset {
+
+    private final List<Dataset> partitions;
+    private final List<Component> components;
+    private volatile int[] offsets;
+
+    /**
+     * Constructor taking the partitions and the list of structure components.
+     *
+     * @param partitions The partitions of the dataset, with the given structure.
+     * @param structures The list of structure components forming the structure of the dataset.
+     */
+    public PartitionedDataset(List<? extends Dataset> partitions, List<Component> structures) {
+        this.partitions = List.copyOf(Objects.requireNonNull(partitions));
+        this.components = Objects.requireNonNull(structures);
+    }
+
+    /**
+     * Returns the partitions of the dataset.
+     *
+     * @return The partitions of the dataset, in order.
+     */
+    public List<Dataset> getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Returns the positions of the first data point of each partition, followed by the number of data points.
+     */
+    private int[] getOffsets() {
+        var result = offsets;
+        if (result == null) {
+            result = new int[partitions.size() + 1];
+            for (int i = 0; i < partitions.size(); i++) {
+                result[i + 1] = result[i] + partitions.get(i).getDataPoints().size();
+            }
+            offsets = result;
+        }
+        return result;
+    }
+
+    @Override
+    public long getSizeIfKnown() {
+        var offsets = this.offsets;
+        if (offsets != null) {
+            return offsets[offsets.length - 1];
+        }
+        long size = 0;
+        for (Dataset partition : partitions) {
+            var partitionSize = partition.getSizeIfKnown();
+            if (partitionSize < 0) {
+                return -1;
+            }
+            size += partitionSize;
+        }
+        return size;
+    }
+
+    @Override
+    public List<List<Object>> getDataPoints() {
+        return new Rows(getOffsets());
+    }
+
+    @Override
+    public Stream<List<Object>> stream() {
+        return partitions.stream().flatMap(Dataset::stream);
+    }
+
+    @Override
+    public List<Component> getDataStructure() {
+        return components;
+    }
+
+    private class Rows extends AbstractList<List<Object>> implements RandomAccess {
+
+        private final int[] offsets;
+
+        Rows(int[] offsets) {
+            this.offsets = offsets;
+        }
+
+        @Override
+        public List<Object> get(int index) {
+            Objects.checkIndex(index, size());
+            // Last partition starting at or before the index; empty partitions share their offset with the next one.
+            var partition = Arrays.binarySearch(offsets, index);
+            if (partition < 0) {
+                partition = -partition - 2;
+            } else {
+                while (offsets[partition + 1] == index) {
+                    partition++;
+                }
+            }
+            return partitions.get(partition).getDataPoints().get(index - offsets[partition]);
+        }
+
+        @Override
+        public int size() {
+            return offsets[offsets.length - 1];
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package fr.insee.vtl.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of <code>Dataset</code> exposing a projection of another dataset.
+ * <p>
+ * The data points are not copied: each data point of the projected dataset is a view of the data point of the
+ * underlying dataset at the same position, whose values are read through a mapping of the column indices. When no
+ * mapping is given, only the structure differs (for instance after a rename) and the data points of the underlying
+ * dataset are returned as they are.
+ */
+public class ProjectedDataset implements Dataset {
+
+    private final Dataset dataset;
+    private final int[] indices;
+    private final List<Component> components;
+
+    /**
+     * Constructor taking the dataset to project, the positions of the projected components and the resulting
+     * structure.
+     *
+     * @param dataset    The underlying dataset.
+     * @param indices    The position in the underlying dataset of each component of the structure.
+     * @param structures The list of structure components forming the structure of the projected dataset.
+     */
+    public ProjectedDataset(Dataset dataset, int[] indices, List<Component> structures) {
+        Objects.requireNonNull(dataset);
+        this.components = Objects.requireNonNull(structures);
+        if (indices.length != structures.size()) {
+            throw new IllegalArgumentException("indices do not match the structure size");
+        }
+        int size = dataset.getDataStructure().size();
+        for (int index : indices) {
+            Objects.checkIndex(index, size);
+        }
+        // Project the underlying dataset directly rather than stacking views.
+        if (dataset instanceof ProjectedDataset) {
+            var projected = (ProjectedDataset) dataset;
+            this.dataset = projected.dataset;
+            this.indices = projected.indices == null ? indices.clone() : compose(projected.indices, indices);
+        } else {
+            this.dataset = dataset;
+            this.indices = indices.clone();
+        }
+    }
+
+    /**
+     * Constructor taking the dataset to project and a new structure with the same number of components, for instance
+     * to rename components.
+     *
+     * @param dataset    The underlying dataset.
+     * @param structures The list of structure components forming the structure of the projected dataset.
+     */
+    public ProjectedDataset(Dataset dataset, List<Component> structures) {
+        Objects.requireNonNull(dataset);
+        this.components = Objects.requireNonNull(structures);
+        if (dataset.getDataStructure().size() != structures.size()) {
+            throw new IllegalArgumentException("structure sizes differ");
+        }
+        if (dataset instanceof ProjectedDataset) {
+            var projected = (ProjectedDataset) dataset;
+            this.dataset = projected.dataset;
+            this.indices = projected.indices;
+        } else {
+            this.dataset = dataset;
+            this.indices = null;
+        }
+    }
+
+    private static int[] compose(int[] first, int[] second) {
+        var composed = new int[second.length];
+        for (int i = 0; i < second.length; i++) {
+            composed[i] = first[second[i]];
+        }
+        return composed;
+    }
+
+    @Override
+    public Stream<List<Object>> stream() {
+        if (indices == null) {
+            return dataset.stream();
+        }
+        return dataset.stream().map(Row::new);
+    }
+
+    @Override
+    public long getSizeIfKnown() {
+        return dataset.getSizeIfKnown();
+    }
+
+    @Override
+    public List<String> getSortOrder() {
+        // The order is kept as long as the components it starts with are projected.
+        var names = dataset.getColumnNames();
+        var sortOrder = new ArrayList<String>();
+        for (String name : dataset.getSortOrder()) {
+            var index = names.indexOf(name);
+            if (indices != null) {
+                index = indexOf(indices, index);
+            }
+            if (index < 0) {
+                break;
+            }
+            sortOrder.add(components.get(index).getName());
+        }
+        return sortOrder;
+    }
+
+    private static int indexOf(int[] indices, int index) {
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] == index) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public List<List<Object>> getDataPoints() {
+        if (indices == null) {
+            return dataset.getDataPoints();
+        }
+        return new Rows(dataset.getDataPoints());
+    }
+
+    @Override
+    public List<Component> getDataStructure() {
+        return components;
+    }
+
+    private class Rows extends AbstractList<List<Object>> implements RandomAccess {
+
+        private final List<List<Object>> rows;
+
+        Rows(List<List<Object>> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public List<Object> get(int index) {
+            return new Row(rows.get(index));
+        }
+
+        @Override
+        public int size() {
+            return rows.size();
+        }
+    }
+
+    private class Row extends AbstractList<Object> implements RandomAccess {
+
+        private final List<Object> row;
+
+        Row(List<Object> row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(int index) {
+            return row.get(indices[index]);
+        }
+
+        @Override
+        public int size() {
+            return indices.length;
+        }
+    }
+}